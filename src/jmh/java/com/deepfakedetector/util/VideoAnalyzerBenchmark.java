@@ -0,0 +1,123 @@
+package com.deepfakedetector.util;
+
+import com.deepfakedetector.model.response.DetectionResultResponse;
+import com.deepfakedetector.util.analysis.AnalysisResultCache;
+import com.deepfakedetector.util.analysis.AnalysisScheduler;
+import com.deepfakedetector.util.analysis.ModelCache;
+import com.deepfakedetector.util.analysis.PipelineMetrics;
+import com.deepfakedetector.util.analysis.ThreadBudget;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One complete analysis ({@code testVideo}) per invocation, with the analyzer
+ * wired as in the application from application.properties (Redis off). Each
+ * call passes a fresh content digest, so the result cache never answers it.
+ * <p>
+ * The video is {@code -Dbench.video=<file>} when set; otherwise a noise clip
+ * of the given resolution and length is encoded once per trial, which
+ * measures decoding and face detection only, as it has no faces to score.
+ * Any analyzer setting can be overridden with a system property.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VideoAnalyzerBenchmark {
+
+    @Param({"640x360", "1280x720"})
+    public String resolution;
+
+    @Param({"10"})
+    public int seconds;
+
+    private AnnotationConfigApplicationContext context;
+    private VideoAnalyzer analyzer;
+    private Path syntheticVideo;
+    private String video;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setProperty("model.video.result-cache.redis.enabled",
+                System.getProperty("model.video.result-cache.redis.enabled", "false"));
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources()
+                .addLast(new ResourcePropertySource("classpath:application.properties"));
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.register(AnalysisScheduler.class, AnalysisResultCache.class, ModelCache.class,
+                ThreadBudget.class, PipelineMetrics.class, VideoAnalyzer.class);
+        context.refresh();
+        analyzer = context.getBean(VideoAnalyzer.class);
+
+        video = System.getProperty("bench.video");
+        if (video == null) {
+            syntheticVideo = Files.createTempFile("bench-", ".mp4");
+            writeNoiseVideo(syntheticVideo);
+            video = syntheticVideo.toString();
+        }
+    }
+
+    private void writeNoiseVideo(Path file) throws Exception {
+        String[] size = resolution.split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        int fps = 25;
+        Random random = new Random(42);
+        byte[] pixels = new byte[width * height * 3];
+        try (FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(file.toFile(), width, height);
+             OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat();
+             Mat mat = new Mat(height, width, opencv_core.CV_8UC3)) {
+            recorder.setFormat("mp4");
+            recorder.setFrameRate(fps);
+            recorder.start();
+            for (int i = 0; i < seconds * fps; i++) {
+                random.nextBytes(pixels);
+                mat.data().put(pixels);
+                Frame frame = converter.convert(mat);
+                recorder.record(frame);
+            }
+            recorder.stop();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        if (syntheticVideo != null) {
+            Files.deleteIfExists(syntheticVideo);
+        }
+    }
+
+    @Benchmark
+    public DetectionResultResponse testVideo() {
+        return analyzer.analyzeVideo(video, null, UUID.randomUUID().toString()).block();
+    }
+}
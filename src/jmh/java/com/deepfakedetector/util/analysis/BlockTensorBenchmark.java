@@ -0,0 +1,80 @@
+package com.deepfakedetector.util.analysis;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tensorflow.types.TFloat32;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning face crops into model input: {@code interleave} is the per-block
+ * normalise-and-stack loop (formerly matToFloatArray, stackFrames and the
+ * X_block loop) and {@code writeBlocks} fills a whole batch tensor (the
+ * NdArray fill of the old modelPredict).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockTensorBenchmark {
+
+    @Param({"128", "224"})
+    public int imageSize;
+
+    @Param({"1", "8"})
+    public int batchSize;
+
+    private List<BlockInput> blocks;
+    private float[] block;
+    private BlockTensorWriter writer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        blocks = new ArrayList<>(batchSize);
+        for (int b = 0; b < batchSize; b++) {
+            byte[][] frames = new byte[BlockTensorWriter.FRAMES_PER_BLOCK][imageSize * imageSize
+                    * BlockTensorWriter.CHANNELS];
+            for (byte[] frame : frames) {
+                random.nextBytes(frame);
+            }
+            blocks.add(new BlockInput(frames, new float[BlockTensorWriter.HAND_FEATURES]));
+        }
+        block = new float[imageSize * imageSize * BlockTensorWriter.FRAMES_PER_BLOCK * BlockTensorWriter.CHANNELS];
+        writer = new BlockTensorWriter(imageSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        writer.close();
+    }
+
+    @Benchmark
+    public float[] interleave() {
+        for (BlockInput input : blocks) {
+            BlockTensorWriter.interleave(input.getFrames(), block);
+        }
+        return block;
+    }
+
+    @Benchmark
+    public TFloat32 writeBlocks() {
+        return writer.writeBlocks(blocks);
+    }
+}
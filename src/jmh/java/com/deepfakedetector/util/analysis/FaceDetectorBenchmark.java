@@ -0,0 +1,128 @@
+package com.deepfakedetector.util.analysis;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_dnn;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_dnn.Net;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Face detection and cropping ({@code detectAndCropFace} before it moved to
+ * {@link FaceDetector}) over a fixed sequence of frames, counted per frame.
+ * Frames are random noise of the given resolution, so every scheduled
+ * detection runs but finds nothing; set {@code -Dbench.video=<file>} to use
+ * the first 32 frames of a real video (at its own resolution) instead,
+ * which includes the crops.
+ * The SSD model is read from {@code -Dbench.models} (the bundled models
+ * directory by default).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class FaceDetectorBenchmark {
+
+    private static final int FRAMES = 32;
+
+    @Param({"640x360", "1280x720"})
+    public String resolution;
+
+    @Param({"1", "5"})
+    public int detectInterval;
+
+    @Param({"1", "8"})
+    public int batchSize;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<Mat> frames = new ArrayList<>(FRAMES);
+    private BufferPool buffers;
+    private Net net;
+    private FaceDetector detector;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path models = Path.of(System.getProperty("bench.models", "src/main/resources/models"));
+        net = opencv_dnn.readNetFromCaffe(models.resolve("deploy.prototxt").toString(),
+                models.resolve("res10_300x300_ssd_iter_140000.caffemodel").toString());
+        buffers = new BufferPool("bench", 256L * 1024 * 1024, registry);
+        detector = new FaceDetector(net, 128, detectInterval, 30, true, 0, buffers, new PipelineMetrics(registry));
+
+        String video = System.getProperty("bench.video");
+        if (video != null) {
+            readFrames(video);
+        } else {
+            String[] size = resolution.split("x");
+            int width = Integer.parseInt(size[0]);
+            int height = Integer.parseInt(size[1]);
+            Random random = new Random(42);
+            byte[] pixels = new byte[width * height * 3];
+            for (int i = 0; i < FRAMES; i++) {
+                random.nextBytes(pixels);
+                Mat frame = new Mat(height, width, opencv_core.CV_8UC3);
+                frame.data().put(pixels);
+                frames.add(frame);
+            }
+        }
+    }
+
+    private void readFrames(String video) throws Exception {
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(video);
+             OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat()) {
+            grabber.setImageMode(FFmpegFrameGrabber.ImageMode.COLOR);
+            grabber.start();
+            Frame frame;
+            while (frames.size() < FRAMES && (frame = grabber.grabImage()) != null) {
+                frames.add(converter.convert(frame).clone());
+            }
+            grabber.stop();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        frames.forEach(Mat::close);
+        buffers.close();
+        net.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public int detectAndCrop() {
+        int faces = 0;
+        for (int i = 0; i < frames.size(); i += batchSize) {
+            byte[][] crops = detector.detectAndCrop(frames.subList(i, Math.min(frames.size(), i + batchSize)));
+            for (byte[] crop : crops) {
+                if (crop != null) {
+                    faces++;
+                    buffers.release(crop);
+                }
+            }
+        }
+        return faces;
+    }
+}
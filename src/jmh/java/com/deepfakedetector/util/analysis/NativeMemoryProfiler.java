@@ -0,0 +1,38 @@
+package com.deepfakedetector.util.analysis;
+
+import org.bytedeco.javacpp.Pointer;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Native memory held through JavaCPP at the end of each iteration: bytes in
+ * live Pointers and the process's physical bytes. A value that keeps rising
+ * across iterations is a native leak the GC profiler cannot see.
+ */
+public class NativeMemoryProfiler implements InternalProfiler {
+
+    @Override
+    public String getDescription() {
+        return "Native bytes held through JavaCPP";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+                                                       IterationParams iterationParams, IterationResult result) {
+        return List.of(
+                new ScalarResult("native.pointer.bytes", Pointer.totalBytes(), "bytes", AggregationPolicy.MAX),
+                new ScalarResult("native.physical.bytes", Pointer.physicalBytes(), "bytes", AggregationPolicy.MAX));
+    }
+}
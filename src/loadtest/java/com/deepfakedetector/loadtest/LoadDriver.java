@@ -0,0 +1,181 @@
+package com.deepfakedetector.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load: {@code concurrency} clients each upload the next
+ * corpus video as soon as their previous request finished, alternating
+ * between the configured endpoints, until the request budget is spent.
+ * Latency is measured per request from sending the upload to the full
+ * response.
+ */
+final class LoadDriver {
+
+    static final String PUBLIC_DETECT = "/api/v1/public/videos/detect";
+    static final String PROFILE_DETECT = "/api/v1/profile/videos/detect";
+    private static final String AUTHENTICATE = "/api/v1/auth/authenticate";
+    private static final Pattern ID_TOKEN = Pattern.compile("\"id_token\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String baseUrl;
+    private final List<byte[]> videos = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final String sampling;
+    private final Duration timeout;
+    private String token;
+
+    LoadDriver(String baseUrl, List<Path> corpus, String sampling, Duration timeout) throws IOException {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        for (Path video : corpus) {
+            videos.add(Files.readAllBytes(video));
+            names.add(video.getFileName().toString());
+        }
+        this.sampling = sampling;
+        this.timeout = timeout;
+    }
+
+    void login(String userName, String password) throws IOException, InterruptedException {
+        String body = "{\"userName\":\"" + userName + "\",\"password\":\"" + password + "\",\"rememberMe\":false}";
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + AUTHENTICATE))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = ID_TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Login as " + userName + " failed with HTTP "
+                    + response.statusCode() + ": " + response.body());
+        }
+        token = matcher.group(1);
+    }
+
+    /**
+     * Runs {@code requests} uploads over {@code concurrency} clients and
+     * returns the outcome per endpoint.
+     */
+    Map<String, Stats> run(List<String> endpoints, int concurrency, int requests) throws Exception {
+        Map<String, Stats> stats = new TreeMap<>();
+        endpoints.forEach(endpoint -> stats.put(endpoint, new Stats()));
+        AtomicInteger next = new AtomicInteger();
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> running = new ArrayList<>(concurrency);
+            for (int c = 0; c < concurrency; c++) {
+                running.add(clients.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < requests) {
+                        String endpoint = endpoints.get(i % endpoints.size());
+                        stats.get(endpoint).record(upload(endpoint, i % videos.size()));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : running) {
+                client.get();
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+        stats.values().forEach(s -> s.elapsedNanos = elapsed);
+        return stats;
+    }
+
+    private Outcome upload(String endpoint, int video) {
+        String boundary = "----loadtest" + UUID.randomUUID();
+        String url = baseUrl + endpoint + (sampling != null ? "?sampling=" + sampling : "");
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipart(boundary, names.get(video), videos.get(video))));
+        if (PROFILE_DETECT.equals(endpoint)) {
+            request.header("Authorization", "Bearer " + token);
+        }
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            return new Outcome(System.nanoTime() - start, Integer.toString(response.statusCode()));
+        } catch (Exception e) {
+            return new Outcome(System.nanoTime() - start, e.getClass().getSimpleName());
+        }
+    }
+
+    private static byte[] multipart(String boundary, String fileName, byte[] content) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 256);
+        String head = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"video\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: video/mp4\r\n\r\n";
+        body.writeBytes(head.getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+
+    private record Outcome(long nanos, String status) {
+
+        boolean ok() {
+            return status.startsWith("2");
+        }
+    }
+
+    static final class Stats {
+
+        private final List<Long> latencies = new ArrayList<>();
+        private final Map<String, Integer> statuses = new TreeMap<>();
+        private int errors;
+        private long elapsedNanos;
+
+        private synchronized void record(Outcome outcome) {
+            latencies.add(outcome.nanos());
+            statuses.merge(outcome.status(), 1, Integer::sum);
+            if (!outcome.ok()) {
+                errors++;
+            }
+        }
+
+        synchronized String summary() {
+            int count = latencies.size();
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            double seconds = elapsedNanos / 1e9;
+            return String.format("%d requests, %.2f req/s, errors %d (%.1f%%), latency ms p50 %.0f p95 %.0f p99 %.0f"
+                            + " max %.0f, statuses %s",
+                    count, seconds > 0 ? count / seconds : 0, errors, count > 0 ? 100.0 * errors / count : 0,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    percentile(sorted, 1.0), statuses);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.deepfakedetector.loadtest;
+
+import com.deepfakedetector.DeepfakeDetectorApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end load test of both detect endpoints that needs neither real
+ * footage nor MySQL or Redis: it renders a corpus of synthetic face videos,
+ * boots the application in-process on H2 with local caches (unless
+ * {@code url} points it at a running instance), signs in as one of the
+ * default users and drives the endpoints at a fixed concurrency.
+ * <p>
+ * Options are {@code name=value} (a leading {@code --} is optional); dotted
+ * names are application properties for the booted instance, e.g.
+ * {@code model.video.sampling=every-nth:5}.
+ * <pre>
+ *   url          running instance to test instead of booting one
+ *   videos       corpus size (8)
+ *   seconds      clip length (10)
+ *   resolution   clip size (640x360)
+ *   fps          clip frame rate (25)
+ *   concurrency  requests in flight (4)
+ *   requests     measured requests (100)
+ *   warmup       requests before measuring (concurrency)
+ *   endpoints    public, profile or public,profile (both)
+ *   stub         score with the stub model instead of the bundled one (true)
+ *   cache        keep the result cache; off, every upload is analysed (false)
+ *   sampling     sampling request parameter (application default)
+ *   user         account for the profile endpoint (mohamed01 / password123)
+ *   work         corpus, stub model and uploads (target/loadtest/work)
+ * </pre>
+ * The face detector always runs the bundled SSD model, so the Git LFS files
+ * must be checked out.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        Map<String, String> appArgs = new LinkedHashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = option.indexOf('=');
+            if (eq < 1) {
+                throw new IllegalArgumentException("Expected name=value, got " + arg);
+            }
+            String name = option.substring(0, eq);
+            (name.contains(".") ? appArgs : options).put(name, option.substring(eq + 1));
+        }
+
+        Path work = Path.of(options.getOrDefault("work", "target/loadtest/work")).toAbsolutePath();
+        String[] resolution = options.getOrDefault("resolution", "640x360").split("x");
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        int fps = Integer.parseInt(options.getOrDefault("fps", "25"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "4"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "100"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", Integer.toString(concurrency)));
+        List<String> endpoints = new ArrayList<>();
+        for (String endpoint : options.getOrDefault("endpoints", "public,profile").split(",")) {
+            endpoints.add(switch (endpoint.trim()) {
+                case "public" -> LoadDriver.PUBLIC_DETECT;
+                case "profile" -> LoadDriver.PROFILE_DETECT;
+                default -> throw new IllegalArgumentException("Unknown endpoint: " + endpoint);
+            });
+        }
+
+        List<Path> corpus = SyntheticVideos.generate(work.resolve("videos"),
+                Integer.parseInt(options.getOrDefault("videos", "8")),
+                Integer.parseInt(resolution[0]), Integer.parseInt(resolution[1]), seconds, fps);
+        System.out.printf("Corpus: %d x %ss %sx%s@%d in %s%n",
+                corpus.size(), seconds, resolution[0], resolution[1], fps, work.resolve("videos"));
+
+        ConfigurableApplicationContext app = null;
+        String url = options.get("url");
+        try {
+            if (url == null) {
+                app = boot(work, options, appArgs);
+                url = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+            }
+
+            // Uploads queue for admission, so the slowest request can wait for a whole batch ahead of it
+            LoadDriver driver = new LoadDriver(url, corpus, options.get("sampling"), Duration.ofMinutes(10));
+            if (endpoints.contains(LoadDriver.PROFILE_DETECT)) {
+                driver.login(options.getOrDefault("user", "mohamed01"),
+                        options.getOrDefault("password", "password123"));
+            }
+
+            if (warmup > 0) {
+                System.out.printf("Warm-up: %d requests%n", warmup);
+                driver.run(endpoints, concurrency, warmup);
+            }
+            System.out.printf("Measuring: %d requests, concurrency %d against %s%n", requests, concurrency, url);
+            long start = System.nanoTime();
+            Map<String, LoadDriver.Stats> results = driver.run(endpoints, concurrency, requests);
+            long elapsed = System.nanoTime() - start;
+
+            System.out.println();
+            results.forEach((endpoint, stats) -> System.out.printf("%-32s %s%n", endpoint, stats.summary()));
+            System.out.printf("%-32s %d requests in %.1f s, %.2f req/s%n", "total",
+                    requests, elapsed / 1e9, requests / (elapsed / 1e9));
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext boot(Path work, Map<String, String> options,
+                                                        Map<String, String> extra) throws Exception {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url",
+                "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.cache.type", "simple");
+        properties.put("management.health.redis.enabled", "false");
+        properties.put("model.video.result-cache.redis.enabled", "false");
+        properties.put("root.path", work.resolve("storage").toString());
+        properties.put("model.cache.directory", work.resolve("model-cache").toString());
+        if (!Boolean.parseBoolean(options.getOrDefault("cache", "false"))) {
+            // The corpus repeats, so with the cache on only the first pass is analysed
+            properties.put("model.video.result-cache.max-entries", "0");
+        }
+        if (Boolean.parseBoolean(options.getOrDefault("stub", "true"))) {
+            Path stub = StubModel.export(work.resolve("stub-model"));
+            properties.put("model.video.directory", "file:" + stub);
+            properties.put("model.video.version", "loadtest-stub");
+        }
+        // Passed-through arguments override the defaults above (repeating one would join the values)
+        properties.putAll(extra);
+
+        List<String> args = new ArrayList<>();
+        properties.forEach((name, value) -> args.add("--" + name + "=" + value));
+        return SpringApplication.run(DeepfakeDetectorApplication.class, args.toArray(String[]::new));
+    }
+}
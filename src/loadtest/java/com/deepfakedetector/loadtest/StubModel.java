@@ -0,0 +1,58 @@
+package com.deepfakedetector.loadtest;
+
+import org.tensorflow.Graph;
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.Session;
+import org.tensorflow.SessionFunction;
+import org.tensorflow.Signature;
+import org.tensorflow.ndarray.Shape;
+import org.tensorflow.op.Ops;
+import org.tensorflow.op.core.Placeholder;
+import org.tensorflow.op.math.Mean;
+import org.tensorflow.types.TFloat32;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Deterministic stand-in for the video model with the same serving
+ * signature, so it runs through the real TensorFlow backend: a block's
+ * score is the mean of its normalised pixels. It costs next to nothing,
+ * which leaves decoding, detection and the HTTP path as what is measured.
+ */
+final class StubModel {
+
+    private StubModel() {
+    }
+
+    static Path export(Path directory) throws Exception {
+        if (Files.exists(directory.resolve("saved_model.pb"))) {
+            return directory;
+        }
+        Files.createDirectories(directory.getParent());
+        try (Graph graph = new Graph(); Session session = new Session(graph)) {
+            Ops tf = Ops.create(graph);
+            var block = tf.withName("serving_default_video_block")
+                    .placeholder(TFloat32.class, Placeholder.shape(Shape.of(-1, -1, -1, 4, 3)));
+            var handFeatures = tf.withName("serving_default_glcm_lbp")
+                    .placeholder(TFloat32.class, Placeholder.shape(Shape.of(-1, 140)));
+
+            var blockMean = tf.math.mean(block, tf.constant(new int[]{1, 2, 3, 4}));
+            // Zero-weighted, but keeps the second input part of the graph like in the real model
+            var handMean = tf.math.mean(handFeatures, tf.constant(1), Mean.keepDims(false));
+            var score = tf.math.add(blockMean, tf.math.mul(handMean, tf.constant(0f)));
+            var output = tf.withName("StatefulPartitionedCall").reshape(score, tf.constant(new int[]{-1, 1}));
+
+            Signature signature = Signature.builder()
+                    .key("serving_default")
+                    .input("video_block", block)
+                    .input("glcm_lbp", handFeatures)
+                    .output("output_0", output)
+                    .build();
+            SavedModelBundle.exporter(directory.toString())
+                    .withFunction(SessionFunction.create(signature, session))
+                    .export();
+        }
+        return directory;
+    }
+}
@@ -0,0 +1,98 @@
+package com.deepfakedetector.loadtest;
+
+import org.bytedeco.ffmpeg.global.avcodec;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.bytedeco.opencv.opencv_core.Size;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Corpus of H.264 clips with a drawn, face-like subject: a skin-toned head
+ * with eyes and a mouth that drifts, nods and blinks over a textured
+ * background. Every clip uses its own seed, so their contents (and content
+ * digests) differ and the result cache cannot answer one upload with
+ * another's result.
+ */
+final class SyntheticVideos {
+
+    private SyntheticVideos() {
+    }
+
+    static List<Path> generate(Path directory, int count, int width, int height, int seconds, int fps)
+            throws Exception {
+        Files.createDirectories(directory);
+        List<Path> videos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Path file = directory.resolve(String.format("synthetic-%dx%d-%ds-%03d.mp4", width, height, seconds, i));
+            if (!Files.exists(file)) {
+                write(file, new Random(i), width, height, seconds, fps);
+            }
+            videos.add(file);
+        }
+        return videos;
+    }
+
+    private static void write(Path file, Random random, int width, int height, int seconds, int fps)
+            throws Exception {
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        Scalar skin = new Scalar(110 + random.nextInt(60), 140 + random.nextInt(50), 180 + random.nextInt(60), 0);
+        Scalar background = new Scalar(random.nextInt(120), random.nextInt(120), random.nextInt(120), 0);
+        Scalar dark = new Scalar(40, 40, 50, 0);
+        Scalar lips = new Scalar(70, 60, 160, 0);
+        double phase = random.nextDouble() * Math.PI * 2;
+
+        try (FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(partial.toFile(), width, height);
+             OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat();
+             Mat frame = new Mat(height, width, opencv_core.CV_8UC3);
+             Mat noise = new Mat(height, width, opencv_core.CV_8UC3)) {
+            recorder.setFormat("mp4");
+            recorder.setVideoCodec(avcodec.AV_CODEC_ID_H264);
+            recorder.setFrameRate(fps);
+            recorder.setVideoOption("preset", "veryfast");
+            recorder.start();
+
+            byte[] grain = new byte[width * height * 3];
+            int faceHeight = height / 2;
+            int faceWidth = faceHeight * 3 / 4;
+            for (int f = 0; f < seconds * fps; f++) {
+                double t = phase + f / (double) fps;
+                frame.put(background);
+                random.nextBytes(grain);
+                noise.data().put(grain);
+                opencv_core.addWeighted(frame, 1.0, noise, 0.08, 0, frame);
+
+                int cx = width / 2 + (int) (width / 8 * Math.sin(t * 0.7));
+                int cy = height / 2 + (int) (height / 16 * Math.sin(t * 1.3));
+                int eyeY = cy - faceHeight / 8;
+                int eyeDx = faceWidth / 5;
+                int eyeHeight = (f / fps) % 3 == 0 && f % fps < 3 ? 1 : Math.max(2, faceHeight / 24);
+
+                opencv_imgproc.ellipse(frame, new Point(cx, cy), new Size(faceWidth / 2, faceHeight / 2),
+                        0, 0, 360, skin, -1, opencv_imgproc.LINE_AA, 0);
+                opencv_imgproc.ellipse(frame, new Point(cx - eyeDx, eyeY), new Size(faceWidth / 10, eyeHeight),
+                        0, 0, 360, dark, -1, opencv_imgproc.LINE_AA, 0);
+                opencv_imgproc.ellipse(frame, new Point(cx + eyeDx, eyeY), new Size(faceWidth / 10, eyeHeight),
+                        0, 0, 360, dark, -1, opencv_imgproc.LINE_AA, 0);
+                opencv_imgproc.line(frame, new Point(cx, eyeY + faceHeight / 12), new Point(cx, cy + faceHeight / 10),
+                        dark, Math.max(1, faceWidth / 40), opencv_imgproc.LINE_AA, 0);
+                opencv_imgproc.ellipse(frame, new Point(cx, cy + faceHeight / 4),
+                        new Size(faceWidth / 6, Math.max(1, (int) (faceHeight / 30 * (1.5 + Math.sin(t * 4))))),
+                        0, 0, 360, lips, -1, opencv_imgproc.LINE_AA, 0);
+
+                recorder.record(converter.convert(frame));
+            }
+            recorder.stop();
+        }
+        Files.move(partial, file);
+    }
+}
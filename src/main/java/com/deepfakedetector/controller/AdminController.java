@@ -4,6 +4,7 @@ import com.deepfakedetector.exception.GenericApiResponse;
 import com.deepfakedetector.model.dto.MediaFileDto;
 import com.deepfakedetector.model.dto.SystemSettingsDto;
 import com.deepfakedetector.service.video.AdminService;
+import com.deepfakedetector.util.analysis.BackendBenchmark;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -387,6 +388,112 @@ public class AdminController {
                 .doOnError(error -> log.error("Admin: Failed to retrieve current settings", error));
     }
 
+    @GetMapping("/models/video")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Get video model version",
+            description = "Version of the model that new video analyses use"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Model version retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = GenericApiResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Access denied - Admin role required",
+                    content = @Content(schema = @Schema())
+            )
+    })
+    public Mono<GenericApiResponse<String>> getModelVersion() {
+        log.debug("Admin: Request to get video model version");
+
+        return adminService.getModelVersion()
+                .map(version -> GenericApiResponse.ok(
+                        "Model version retrieved successfully",
+                        "تم استرجاع إصدار النموذج بنجاح",
+                        version
+                ));
+    }
+
+    @PutMapping("/models/video/{version}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Switch video model version",
+            description = "Load a model version from the configured versions directory, warm it up and switch new "
+                    + "analyses to it. Running analyses finish on the previous model, which is closed afterwards"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Model version switched successfully",
+                    content = @Content(schema = @Schema(implementation = GenericApiResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Access denied - Admin role required",
+                    content = @Content(schema = @Schema())
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Model version not found or failed to load",
+                    content = @Content(schema = @Schema())
+            )
+    })
+    public Mono<GenericApiResponse<String>> switchModelVersion(
+            @Parameter(description = "Model version (directory name)", required = true)
+            @PathVariable @NotBlank(message = "Model version is required") String version
+    ) {
+        log.info("Admin: Request to switch video model to version {}", version);
+
+        return adminService.switchModelVersion(version)
+                .map(current -> GenericApiResponse.ok(
+                        "Model version switched successfully",
+                        "تم تبديل إصدار النموذج بنجاح",
+                        current
+                ))
+                .doOnSuccess(response -> log.info("Admin: Video model switched to {}", response.getData()))
+                .doOnError(error -> log.error("Admin: Failed to switch video model to {}", version, error));
+    }
+
+    @GetMapping("/models/video/benchmark")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Benchmark inference backends",
+            description = "Time the TensorFlow and OpenCV-DNN (ONNX) backends on the current model version with "
+                    + "the same synthetic batches. Loads a second copy of the model and competes with running "
+                    + "analyses for CPU, so run it off-peak"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Benchmark completed successfully",
+                    content = @Content(schema = @Schema(implementation = GenericApiResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Access denied - Admin role required",
+                    content = @Content(schema = @Schema())
+            )
+    })
+    public Mono<GenericApiResponse<List<BackendBenchmark.Result>>> benchmarkInferenceBackends(
+            @Parameter(description = "Blocks per batch (capped at model.batch.size)")
+            @RequestParam(defaultValue = "8") @Min(value = 1, message = "Batch size must be at least 1") int batchSize,
+            @Parameter(description = "Timed batches per backend")
+            @RequestParam(defaultValue = "20") @Min(value = 1, message = "Batches must be at least 1") int batches
+    ) {
+        log.info("Admin: Request to benchmark inference backends");
+
+        return adminService.benchmarkInferenceBackends(batchSize, batches)
+                .map(results -> GenericApiResponse.ok(
+                        "Inference backends benchmarked successfully",
+                        "تم قياس أداء محركات الاستدلال بنجاح",
+                        results
+                ))
+                .doOnError(error -> log.error("Admin: Failed to benchmark inference backends", error));
+    }
+
     @GetMapping("/videos/count")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(
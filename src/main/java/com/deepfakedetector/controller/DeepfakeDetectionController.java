@@ -16,6 +16,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
@@ -64,12 +65,15 @@ public class DeepfakeDetectionController {
             )
             @RequestPart("video")
             @NotNull(message = "Video file is required")
-            MultipartFile video
+            MultipartFile video,
+            @Parameter(description = "Optional frame sampling override: all, every-nth:N, target-fps:F, keyframe or uniform-blocks:N")
+            @RequestParam(value = "sampling", required = false)
+            String sampling
     ) {
         log.info("Received video detection request - File: {}, Size: {} bytes",
                 video.getOriginalFilename(), video.getSize());
 
-        return videoService.detectVideo(video)
+        return videoService.detectVideo(video, sampling)
                 .map(DetectionResponse::new);
     }
 }
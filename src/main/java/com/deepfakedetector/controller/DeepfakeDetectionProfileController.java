@@ -18,6 +18,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
@@ -63,11 +64,14 @@ public class DeepfakeDetectionProfileController {
             @Parameter(description = "Video file to analyze", required = true)
             @RequestPart("video")
             @NotNull(message = "Video file is required")
-            MultipartFile video
+            MultipartFile video,
+            @Parameter(description = "Optional frame sampling override: all, every-nth:N, target-fps:F, keyframe or uniform-blocks:N")
+            @RequestParam(value = "sampling", required = false)
+            String sampling
     ) throws IOException, DeepfakeException {
 
         log.info("Received video file: {}", video.getOriginalFilename());
-        DetectionResultResponse result = videoService.detectVideo(video);
+        DetectionResultResponse result = videoService.detectVideo(video, sampling);
         DetectionResponse<DetectionResultResponse> response = new DetectionResponse<>(result);
         return ResponseEntity.ok(response);
     }
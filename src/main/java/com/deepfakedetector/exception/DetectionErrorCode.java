@@ -28,6 +28,10 @@ public enum DetectionErrorCode implements Classifiable {
     FAILED_TO_EXTRACT_DURATION("FAILED_TO_EXTRACT_DURATION"),
     FAILED_TO_ANALYZE_VIDEO("FAILED_TO_ANALYZE_VIDEO"),
     INVALID_OR_CORRUPTED_VIDEO("INVALID_OR_CORRUPTED_VIDEO"),
+    ANALYSIS_QUEUE_FULL("ANALYSIS_QUEUE_FULL"),
+    ANALYSIS_QUEUE_TIMEOUT("ANALYSIS_QUEUE_TIMEOUT"),
+    MODEL_VERSION_NOT_FOUND("MODEL_VERSION_NOT_FOUND"),
+    FAILED_TO_LOAD_MODEL("FAILED_TO_LOAD_MODEL"),
 
     // Profile image errors
     EMPTY_OR_MISSING_FILE("EMPTY_OR_MISSING_FILE"),
@@ -12,7 +12,7 @@ import java.util.UUID;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class DetectionResultResponse {
     private UUID videoId;
@@ -21,4 +21,10 @@ public class DetectionResultResponse {
     private double processingTime;
     private String fakeRatio;
     private boolean fake;
+    private Integer framesDecoded;
+    private Integer framesSkipped;
+    private Integer blocksEvaluated;
+    private Boolean earlyExit;
+    private Boolean cached;
+    private String modelVersion;
 }
@@ -11,6 +11,8 @@ import com.deepfakedetector.repository.DetectionResultRepository;
 import com.deepfakedetector.repository.MediaFileRepository;
 import com.deepfakedetector.repository.UserRepository;
 import com.deepfakedetector.util.ReportGenerator;
+import com.deepfakedetector.util.VideoAnalyzer;
+import com.deepfakedetector.util.analysis.BackendBenchmark;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -44,6 +46,7 @@ public class AdminService {
     private final DetectionResultRepository detectionResultRepository;
     private final MediaFileMapper mediaFileMapper;
     private final ReportGenerator reportGenerator;
+    private final VideoAnalyzer videoAnalyzer;
 
     private final ExecutorService adminProcessingExecutor = Executors.newFixedThreadPool(
             Math.min(6, Runtime.getRuntime().availableProcessors())
@@ -232,6 +235,37 @@ public class AdminService {
                 .onErrorMap(this::mapToAppropriateException);
     }
 
+    public Mono<String> getModelVersion() {
+        return Mono.fromCallable(videoAnalyzer::getModelVersion)
+                .onErrorMap(this::mapToAppropriateException);
+    }
+
+    public Mono<String> switchModelVersion(String version) {
+        log.info("Admin: Switching video model to version {}", version);
+
+        return Mono.fromCallable(() -> {
+                    videoAnalyzer.switchModelVersion(version);
+                    return videoAnalyzer.getModelVersion();
+                })
+                .subscribeOn(Schedulers.fromExecutor(adminProcessingExecutor))
+                .doOnSuccess(current -> log.info("Admin: Video model is now version {}", current))
+                .doOnError(err -> {
+                    log.error("Admin: Failed to switch video model to {}: {}", version, err.getMessage(), err);
+                })
+                .onErrorMap(this::mapToAppropriateException);
+    }
+
+    public Mono<List<BackendBenchmark.Result>> benchmarkInferenceBackends(int batchSize, int batches) {
+        log.info("Admin: Benchmarking inference backends (batch size {}, {} batches)", batchSize, batches);
+
+        return Mono.fromCallable(() -> videoAnalyzer.benchmarkBackends(batchSize, batches))
+                .subscribeOn(Schedulers.fromExecutor(adminProcessingExecutor))
+                .doOnError(err -> {
+                    log.error("Admin: Failed to benchmark inference backends: {}", err.getMessage(), err);
+                })
+                .onErrorMap(this::mapToAppropriateException);
+    }
+
     private List<MediaFileDto> validateAndFetchAllVideos() throws DeepfakeException {
         List<MediaFile> mediaFiles = mediaFileRepository.findAllByOrderByUploadedAtDesc();
         return mediaFiles.stream()
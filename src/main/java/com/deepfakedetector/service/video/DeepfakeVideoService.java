@@ -4,7 +4,10 @@ import com.deepfakedetector.exception.DeepfakeException;
 import com.deepfakedetector.exception.DeepfakeSilentException;
 import com.deepfakedetector.exception.DetectionErrorCode;
 import com.deepfakedetector.model.response.DetectionResultResponse;
+import com.deepfakedetector.util.ContentDigest;
 import com.deepfakedetector.util.VideoAnalyzer;
+import com.deepfakedetector.util.analysis.FrameSampling;
+import com.deepfakedetector.util.analysis.PipelineMetrics;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,7 +23,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -32,6 +34,7 @@ import java.util.concurrent.TimeUnit;
 public class DeepfakeVideoService {
 
     private final VideoAnalyzer model;
+    private final PipelineMetrics pipelineMetrics;
     private static final Set<String> SUPPORTED_VIDEO_FORMATS = Set.of(
             ".mp4", ".avi", ".mkv", ".mov", ".wmv", ".flv", ".webm", ".m4v"
     );
@@ -60,9 +63,8 @@ public class DeepfakeVideoService {
         try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(videoFilePath)) {
             grabber.setOption("analyzeduration", "30000000");
             grabber.setOption("probesize", "50000000");
-            grabber.setVideoOption("threads", String.valueOf(
-                    Math.min(4, Runtime.getRuntime().availableProcessors())
-            ));
+            // Only the container header is read, decoder threads would sit idle
+            grabber.setVideoOption("threads", "1");
             grabber.setImageMode(FFmpegFrameGrabber.ImageMode.COLOR);
             grabber.setAudioOption("threads", "1");
             grabber.start();
@@ -80,14 +82,22 @@ public class DeepfakeVideoService {
     }
 
     // نقطة الدخول للبروسيسنق - مُحدثة
-    public Mono<DetectionResultResponse> detectVideo(MultipartFile video) {
+    public Mono<DetectionResultResponse> detectVideo(MultipartFile video, String sampling) {
         log.info("Starting video detection process for: {}", video.getOriginalFilename());
         log.debug("Available memory before processing: {} MB",
                 Runtime.getRuntime().freeMemory() / 1024 / 1024);
 
-        return Mono.fromCallable(() -> validateAndPrepareVideo(video))
+        FrameSampling frameSampling;
+        try {
+            frameSampling = sampling == null ? null : FrameSampling.parse(sampling);
+        } catch (DeepfakeException e) {
+            log.error("Invalid frame sampling requested: {}", sampling);
+            return Mono.error(e);
+        }
+
+        return Mono.fromCallable(() -> validateAndPrepareVideo(video, frameSampling))
                 .subscribeOn(Schedulers.fromExecutor(videoProcessingExecutor))
-                .flatMap(this::analyzeVideoSafely)
+                .flatMap(prepared -> analyzeVideoSafely(prepared.file(), prepared.contentDigest(), frameSampling))
                 .doOnSuccess(response -> {
                     log.info("Successfully completed video detection for: {} - Result: {}",
                             video.getOriginalFilename(), response.getResult());
@@ -99,22 +109,30 @@ public class DeepfakeVideoService {
                 .onErrorMap(this::mapToAppropriateException);
     }
 
+    private record PreparedVideo(File file, String contentDigest) {
+    }
+
     // تحقق وتجهيز الملف المؤقت
-    private File validateAndPrepareVideo(MultipartFile video) throws IOException, DeepfakeException {
+    private PreparedVideo validateAndPrepareVideo(MultipartFile video, FrameSampling sampling)
+            throws IOException, DeepfakeException {
         validateFileExists(video);
         validateFileSize(video);
         validateFileFormat(video);
         File tempFile = createSecureTempFile(video);
-        copyVideoContent(video, tempFile);
-        validateVideoDuration(tempFile);
-        return tempFile;
+        String contentDigest = copyVideoContent(video, tempFile);
+        // A re-upload of an analysed clip already passed every check, so skip probing it again
+        if (model.findCachedResult(contentDigest, sampling) == null) {
+            validateVideoDuration(tempFile);
+        }
+        return new PreparedVideo(tempFile, contentDigest);
     }
 
     // تحليل الفيديو بشكل آمن - مُحدثة مع الحل
-    private Mono<DetectionResultResponse> analyzeVideoSafely(File tempFile) {
+    private Mono<DetectionResultResponse> analyzeVideoSafely(File tempFile, String contentDigest,
+                                                             FrameSampling sampling) {
         log.debug("Starting video analysis for file: {}", tempFile.getName());
 
-        return model.analyzeVideo(tempFile.getAbsolutePath())
+        return model.analyzeVideo(tempFile.getAbsolutePath(), sampling, contentDigest)
                 .doOnSubscribe(subscription -> {
                     log.debug("Analysis subscription started for: {}", tempFile.getName());
                 })
@@ -188,20 +206,32 @@ public class DeepfakeVideoService {
         return tempFile;
     }
 
-    private void copyVideoContent(MultipartFile video, File tempFile) throws IOException {
+    private String copyVideoContent(MultipartFile video, File tempFile) throws IOException {
+        long start = System.nanoTime();
         try (InputStream in = video.getInputStream()) {
-            Files.copy(in, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            log.debug("Copied video to: {}", tempFile.getAbsolutePath());
+            String contentDigest = ContentDigest.copy(in, tempFile.toPath());
+            log.debug("Copied video to: {} (digest {})", tempFile.getAbsolutePath(), contentDigest);
+            pipelineMetrics.processed(PipelineMetrics.Stage.COPY, 1);
+            return contentDigest;
         } catch (IOException e) {
             log.error("Failed to copy video content: {}", e.getMessage(), e);
             cleanupTempFile(tempFile);
             throw new DeepfakeSilentException(DetectionErrorCode.FILE_COPY_ERROR);
+        } finally {
+            pipelineMetrics.time(PipelineMetrics.Stage.COPY, start);
         }
     }
 
     private void validateVideoDuration(File tempFile) throws DeepfakeException {
+        long start = System.nanoTime();
         try {
-            double dur = getVideoDuration(tempFile.getAbsolutePath());
+            double dur;
+            try {
+                dur = getVideoDuration(tempFile.getAbsolutePath());
+            } finally {
+                pipelineMetrics.time(PipelineMetrics.Stage.PROBE, start);
+            }
+            pipelineMetrics.processed(PipelineMetrics.Stage.PROBE, 1);
             log.info("Video duration: {} seconds", dur);
             if (dur > maxAllowedDurationSec) {
                 log.error("Video too long: {} seconds (max: {} seconds)", dur, maxAllowedDurationSec);
@@ -16,7 +16,10 @@ import com.deepfakedetector.repository.DetectionResultRepository;
 import com.deepfakedetector.repository.MediaFileRepository;
 import com.deepfakedetector.repository.UserRepository;
 import com.deepfakedetector.security.SecurityUtils;
+import com.deepfakedetector.util.ContentDigest;
 import com.deepfakedetector.util.VideoAnalyzer;
+import com.deepfakedetector.util.analysis.FrameSampling;
+import com.deepfakedetector.util.analysis.PipelineMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bytedeco.javacv.FFmpegFrameGrabber;
@@ -29,14 +32,15 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -59,28 +63,34 @@ public class VideoProcessingService {
     private final MediaFileRepository mediaFileRepository;
     private final DetectionResultRepository detectionResultRepository;
     private final UserRepository repository;
+    private final PipelineMetrics pipelineMetrics;
 
     private static final long MAX_ALLOWED_FILE_SIZE_BYTES = 100 * 1024 * 1024;
     private static final ConcurrentHashMap<String, User> userCache = new ConcurrentHashMap<>();
     private static final ConcurrentHashMap<String, VideoMetadata> metadataCache = new ConcurrentHashMap<>();
 
     @Transactional
-    public DetectionResultResponse detectVideo(MultipartFile file) throws IOException, DeepfakeException {
+    public DetectionResultResponse detectVideo(MultipartFile file, String sampling) throws IOException, DeepfakeException {
         long startTime = System.currentTimeMillis();
 
         validateFile(file);
+        FrameSampling frameSampling = sampling == null ? null : FrameSampling.parse(sampling);
         User user = getCurrentUser();
-        String filePath = saveFileOptimized(file);
-        VideoMetadata metadata = getVideoMetadataOptimized(filePath);
+        SavedVideo saved = saveFileOptimized(file);
+        String filePath = saved.filePath();
+        VideoMetadata metadata = getVideoMetadataOptimized(filePath, saved.contentDigest());
         MediaFile mediaFile = createMediaFileEntity(file, filePath, metadata, user);
-        MediaFile savedMediaFile = mediaFileRepository.save(mediaFile);
+        MediaFile savedMediaFile = persist(() -> mediaFileRepository.save(mediaFile));
 
         try {
-            DetectionResultResponse result = model.analyzeVideo(filePath).block();
+            DetectionResultResponse result = model.analyzeVideo(filePath, frameSampling, saved.contentDigest()).block();
             result.setVideoId(savedMediaFile.getId());
 
-            saveDetectionResult(savedMediaFile, result);
-            updateMediaFileStatus(savedMediaFile, result);
+            persist(() -> {
+                saveDetectionResult(savedMediaFile, result);
+                updateMediaFileStatus(savedMediaFile, result);
+                return null;
+            });
 
             if (cleanupEnabled) {
                 scheduleFileCleanup(filePath);
@@ -96,10 +106,32 @@ public class VideoProcessingService {
             savedMediaFile.setProcessingStatus(ProcessingStatus.FAILED);
             mediaFileRepository.save(savedMediaFile);
             cleanupFile(filePath);
+            if (isAnalysisRejected(e)) {
+                throw (DeepfakeSilentException) e;
+            }
             throw new DeepfakeSilentException(DetectionErrorCode.DETECTION_FAILED);
         }
     }
 
+    private <T> T persist(Supplier<T> write) {
+        long start = System.nanoTime();
+        try {
+            T written = write.get();
+            pipelineMetrics.processed(PipelineMetrics.Stage.PERSIST, 1);
+            return written;
+        } finally {
+            pipelineMetrics.time(PipelineMetrics.Stage.PERSIST, start);
+        }
+    }
+
+    private boolean isAnalysisRejected(Exception e) {
+        if (!(e instanceof DeepfakeSilentException silent)) {
+            return false;
+        }
+        Object code = silent.getErrorMessage();
+        return code == DetectionErrorCode.ANALYSIS_QUEUE_FULL || code == DetectionErrorCode.ANALYSIS_QUEUE_TIMEOUT;
+    }
+
     private void validateFile(MultipartFile file) throws DeepfakeException {
         if (file.isEmpty()) {
             throw new DeepfakeException(DetectionErrorCode.EMPTY_OR_MISSING_FILE);
@@ -127,7 +159,10 @@ public class VideoProcessingService {
         return getCurrentUserCached(userName);
     }
 
-    private String saveFileOptimized(MultipartFile file) throws IOException {
+    private record SavedVideo(String filePath, String contentDigest) {
+    }
+
+    private SavedVideo saveFileOptimized(MultipartFile file) throws IOException {
         String originalFilename = file.getOriginalFilename();
         String fileExtension = getFileExtension(originalFilename);
         String newFileName = UUID.randomUUID() + fileExtension;
@@ -135,14 +170,22 @@ public class VideoProcessingService {
 
         Path directory = Paths.get(videoStoragePath);
         if (!Files.exists(directory)) Files.createDirectories(directory);
-        Files.copy(file.getInputStream(), Paths.get(filePath), StandardCopyOption.REPLACE_EXISTING);
+        String contentDigest;
+        long start = System.nanoTime();
+        try (InputStream in = file.getInputStream()) {
+            contentDigest = ContentDigest.copy(in, Paths.get(filePath));
+        } finally {
+            pipelineMetrics.time(PipelineMetrics.Stage.COPY, start);
+        }
+        pipelineMetrics.processed(PipelineMetrics.Stage.COPY, 1);
 
         log.info("Video saved: {} ({}MB)", newFileName, String.format("%.2f", file.getSize() / (1024.0 * 1024.0)));
-        return filePath;
+        return new SavedVideo(filePath, contentDigest);
     }
 
-    private VideoMetadata getVideoMetadataOptimized(String filePath) throws DeepfakeException {
-        String cacheKey = filePath + "_" + getFileSize(filePath);
+    private VideoMetadata getVideoMetadataOptimized(String filePath, String contentDigest) throws DeepfakeException {
+        // Keyed by content, so re-uploads saved under a new name skip the probe
+        String cacheKey = contentDigest != null ? contentDigest : filePath + "_" + getFileSize(filePath);
         VideoMetadata cached = metadataCache.get(cacheKey);
         if (cached != null) return cached;
         VideoMetadata metadata = extractVideoMetadata(filePath);
@@ -166,10 +209,12 @@ public class VideoProcessingService {
         if (!videoFile.exists() || !videoFile.canRead()) {
             throw new DeepfakeException(DetectionErrorCode.VIDEO_NOT_FOUND);
         }
+        long start = System.nanoTime();
         try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(videoFile)) {
             grabber.setOption("analyzeduration", "10000000");
             grabber.setOption("probesize", "10000000");
             grabber.start();
+            pipelineMetrics.processed(PipelineMetrics.Stage.PROBE, 1);
 
             double durationSec = grabber.getLengthInTime() / 1_000_000.0;
             int width = grabber.getImageWidth(), height = grabber.getImageHeight();
@@ -187,6 +232,8 @@ public class VideoProcessingService {
         } catch (Exception e) {
             log.error("Error extracting video metadata: {}", e.getMessage());
             throw new DeepfakeSilentException(DetectionErrorCode.FAILED_TO_ANALYZE_VIDEO);
+        } finally {
+            pipelineMetrics.time(PipelineMetrics.Stage.PROBE, start);
         }
     }
 
@@ -246,7 +293,7 @@ public class VideoProcessingService {
                     .confidenceScore((double) result.getScore())
                     .detectionTime(result.getProcessingTime())
                     .detectionMethod(DetectionMethod.DEEP_LEARNING)
-                    .modelVersion("v2.0")
+                    .modelVersion(result.getModelVersion())
                     .predictedAt(LocalDateTime.now())
                     .fakeRatio(Double.toString(convertFakeRatioToDecimal(result.getFakeRatio())))
                     .processingDetails(String.format(
@@ -4,46 +4,60 @@ import com.deepfakedetector.exception.DeepfakeException;
 import com.deepfakedetector.exception.DeepfakeSilentException;
 import com.deepfakedetector.exception.DetectionErrorCode;
 import com.deepfakedetector.model.response.DetectionResultResponse;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.deepfakedetector.util.analysis.AnalysisRecord;
+import com.deepfakedetector.util.analysis.AnalysisResultCache;
+import com.deepfakedetector.util.analysis.AnalysisScheduler;
+import com.deepfakedetector.util.analysis.BackendBenchmark;
+import com.deepfakedetector.util.analysis.BlockScores;
+import com.deepfakedetector.util.analysis.BlockTensorWriter;
+import com.deepfakedetector.util.analysis.BufferPool;
+import com.deepfakedetector.util.analysis.DecodeStats;
+import com.deepfakedetector.util.analysis.FaceDetector;
+import com.deepfakedetector.util.analysis.FaceNetPool;
+import com.deepfakedetector.util.analysis.FrameDecoder;
+import com.deepfakedetector.util.analysis.FrameSampler;
+import com.deepfakedetector.util.analysis.FrameSampling;
+import com.deepfakedetector.util.analysis.HandFeatureExtractor;
+import com.deepfakedetector.util.analysis.InferenceBackend;
+import com.deepfakedetector.util.analysis.InferenceBatcher;
+import com.deepfakedetector.util.analysis.ModelCache;
+import com.deepfakedetector.util.analysis.ModelRegistry;
+import com.deepfakedetector.util.analysis.PipelineMetrics;
+import com.deepfakedetector.util.analysis.SequentialVerdict;
+import com.deepfakedetector.util.analysis.ThreadBudget;
+import com.deepfakedetector.util.analysis.VideoBlockScorer;
 import jakarta.annotation.PreDestroy;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.bytedeco.javacpp.indexer.FloatIndexer;
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.ffmpeg.global.swscale;
 import org.bytedeco.javacv.FFmpegFrameGrabber;
-import org.bytedeco.javacv.Frame;
-import org.bytedeco.javacv.OpenCVFrameConverter;
-import org.bytedeco.opencv.global.opencv_core;
 import org.bytedeco.opencv.global.opencv_dnn;
-import org.bytedeco.opencv.global.opencv_imgproc;
 import org.bytedeco.opencv.opencv_core.Mat;
-import org.bytedeco.opencv.opencv_core.Rect;
-import org.bytedeco.opencv.opencv_core.Scalar;
-import org.bytedeco.opencv.opencv_core.Size;
-import org.bytedeco.opencv.opencv_dnn.Net;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
-import org.tensorflow.SavedModelBundle;
-import org.tensorflow.Session;
-import org.tensorflow.ndarray.NdArrays;
-import org.tensorflow.ndarray.Shape;
-import org.tensorflow.types.TFloat32;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Component
@@ -63,21 +77,85 @@ public class VideoAnalyzer implements AutoCloseable {
 
     private static final int MAX_ALLOWED_DURATION_SEC = 120;
     private static final long MAX_FILE_SIZE_BYTES = 200L * 1024 * 1024;
-    private static final float FACE_CONFIDENCE_THRESHOLD = 0.6f;
-
-    private final SavedModelBundle model;
-    private final Session session;
-    private final OpenCVFrameConverter.ToMat converter;
-    private final ThreadPoolExecutor executorService;
-    private final Cache<String, DetectionResultResponse> resultCache;
-    private final AtomicBoolean isProcessing = new AtomicBoolean(false);
-    private final Net dnnNet;
+    // A single directory name under model.video.versions.directory
+    private static final Pattern MODEL_VERSION_PATTERN = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+    // Marks the end of a segment's crops; compared by identity
+    private static final byte[] SEGMENT_END = new byte[0];
+
+    private final ModelRegistry models;
+    private final String inferenceBackend;
+    private final String onnxFile;
+    private final int maxBatchSize;
+    private final Path modelVersionsDir;
+    private final AnalysisScheduler scheduler;
+    private final PipelineMetrics pipelineMetrics;
+    private final boolean streamingEnabled;
+    private final int maxInFlightBlocks;
+    private final FrameSampling defaultSampling;
+    private final SequentialVerdict sequentialVerdict;
+    private final int faceDetectInterval;
+    private final double sceneChangeThreshold;
+    private final boolean roiTracking;
+    private final int faceBatchSize;
+    private final int maxSegments;
+    private final long minSegmentSeconds;
+    private final int segmentBufferedCrops;
+    private final ExecutorService segmentExecutor;
+    private final ExecutorService decodeExecutor;
+    private final int decodeQueueCapacity;
+    private final int decodeMaxSize;
+    private final boolean fullResolutionCrops;
+    private final AnalysisResultCache resultCache;
+    private final ModelCache modelCache;
+    private final FaceNetPool faceNetPool;
+    private final BufferPool buffers;
+    private final HandFeatureExtractor handFeatures;
+    private final boolean handFeaturesEnabled;
+    private final ExecutorService featureExecutor;
+    private final ThreadBudget threads;
+    private final int decodeThreads;
 
     public VideoAnalyzer(
             @Value("${model.video.directory:model-video}") String modelDir,
             @Value("${model.video.filename:saved_model.pb}") String modelFile,
             @Value("${model.video.size:128}") int imageSize,
-            @Value("${model.video.threshold:0.4}") float threshold
+            @Value("${model.video.threshold:0.4}") float threshold,
+            @Value("${model.video.version:v2.0}") String modelVersion,
+            @Value("${model.video.versions.directory:}") String modelVersionsDirectory,
+            @Value("${model.batch.size:8}") int maxBatchSize,
+            @Value("${model.batch.max-wait-micros:2000}") long maxBatchWaitMicros,
+            @Value("${model.batch.workers:1}") int inferenceWorkers,
+            @Value("${model.video.backend:tensorflow}") String inferenceBackend,
+            @Value("${model.video.onnx.filename:model.onnx}") String onnxFile,
+            @Value("${model.video.streaming.enabled:true}") boolean streamingEnabled,
+            @Value("${model.video.streaming.max-in-flight-blocks:32}") int maxInFlightBlocks,
+            @Value("${model.video.sampling:all}") String sampling,
+            @Value("${model.video.early-exit.enabled:false}") boolean earlyExitEnabled,
+            @Value("${model.video.early-exit.confidence:0.99}") double earlyExitConfidence,
+            @Value("${model.video.early-exit.margin:0.1}") double earlyExitMargin,
+            @Value("${model.video.early-exit.min-blocks:12}") int earlyExitMinBlocks,
+            @Value("${model.video.face.detect-interval:1}") int faceDetectInterval,
+            @Value("${model.video.face.scene-change-threshold:30}") double sceneChangeThreshold,
+            @Value("${model.video.face.tracker:carry}") String faceTracker,
+            @Value("${model.video.face.batch-size:1}") int faceBatchSize,
+            @Value("${model.video.face.pool-size:0}") int facePoolSize,
+            @Value("${model.video.segments.max:1}") int maxSegments,
+            @Value("${model.video.segments.min-seconds:10}") long minSegmentSeconds,
+            @Value("${model.video.segments.buffered-crops:64}") int segmentBufferedCrops,
+            @Value("${model.video.pipeline.decode-queue:8}") int decodeQueueCapacity,
+            @Value("${model.video.pipeline.decode-workers:0}") int decodeWorkers,
+            @Value("${model.video.decode.max-size:0}") int decodeMaxSize,
+            @Value("${model.video.decode.full-resolution-crops:false}") boolean fullResolutionCrops,
+            @Value("${model.video.hand-features.enabled:false}") boolean handFeaturesEnabled,
+            @Value("${model.video.features.threads:0}") int featureThreads,
+            @Value("${model.video.features.vectorized:false}") boolean vectorizedFeatures,
+            @Value("${model.video.buffers.max-idle-mb:256}") long maxIdleBufferMb,
+            AnalysisScheduler scheduler,
+            AnalysisResultCache resultCache,
+            ModelCache modelCache,
+            ThreadBudget threads,
+            PipelineMetrics pipelineMetrics,
+            MeterRegistry meterRegistry
     ) throws IOException {
         log.info("Starting VideoAnalyzer initialization...");
         log.info("Model directory: {}, Model file: {}", modelDir, modelFile);
@@ -88,28 +166,91 @@ public class VideoAnalyzer implements AutoCloseable {
             this.modelFile = modelFile;
             this.imageSize = imageSize;
             this.threshold = threshold;
+            this.modelCache = modelCache;
+            this.threads = threads;
 
             log.info("Initializing DNN face detector...");
-            this.dnnNet = initializeDnnFaceDetector();
+            // One network per concurrently decoded segment unless sized explicitly
+            this.maxSegments = Math.max(1, maxSegments);
+            this.minSegmentSeconds = Math.max(1, minSegmentSeconds);
+            this.segmentBufferedCrops = Math.max(1, segmentBufferedCrops);
+            int poolSize = facePoolSize > 0 ? facePoolSize : scheduler.getMaxConcurrent() * this.maxSegments;
+            this.faceNetPool = initializeDnnFaceDetector(poolSize, meterRegistry);
             log.info("DNN face detector initialized successfully");
 
             validateImageSize();
-            this.converter = new OpenCVFrameConverter.ToMat();
-
-            log.info("Extracting model from resources...");
-            Path modelPath = extractModelFromResources();
-            log.info("Model extracted to: {}", modelPath);
-
-            log.info("Loading TensorFlow model...");
-            this.model = SavedModelBundle.load(modelPath.toString(), "serve");
-            this.session = model.session();
-            log.info("TensorFlow model loaded successfully");
 
-            this.executorService = createExecutorService();
-            this.resultCache = Caffeine.newBuilder()
-                    .maximumSize(100)
-                    .expireAfterWrite(Duration.ofMinutes(30))
-                    .build();
+            log.info("Resolving model files...");
+            Path modelPath = modelCache.resolve("video-model", modelDir);
+            log.info("Model files at: {}", modelPath);
+
+            this.pipelineMetrics = pipelineMetrics;
+            this.buffers = new BufferPool("video", maxIdleBufferMb * 1024 * 1024, meterRegistry);
+
+            log.info("Loading video model...");
+            this.inferenceBackend = inferenceBackend;
+            this.onnxFile = onnxFile;
+            this.maxBatchSize = maxBatchSize;
+            this.models = new ModelRegistry(
+                    directory -> InferenceBackend.load(inferenceBackend, directory, imageSize, onnxFile, threads),
+                    backend -> new InferenceBatcher(backend, maxBatchSize, maxBatchWaitMicros, inferenceWorkers,
+                            pipelineMetrics, buffers),
+                    imageSize);
+            models.load(modelVersion, modelPath);
+            this.modelVersionsDir = modelVersionsDirectory.isBlank() ? null : Paths.get(modelVersionsDirectory);
+            log.info("Model loaded successfully on the {} backend", inferenceBackend);
+
+            this.scheduler = scheduler;
+            this.streamingEnabled = streamingEnabled;
+            this.maxInFlightBlocks = maxInFlightBlocks;
+            this.defaultSampling = parseSampling(sampling);
+            if (earlyExitEnabled && !streamingEnabled) {
+                log.warn("Early exit needs streaming analysis (model.video.streaming.enabled), ignoring it");
+            }
+            this.sequentialVerdict = earlyExitEnabled && streamingEnabled
+                    ? new SequentialVerdict(threshold, earlyExitConfidence, earlyExitMargin, earlyExitMinBlocks)
+                    : null;
+            this.faceDetectInterval = Math.max(1, faceDetectInterval);
+            this.sceneChangeThreshold = sceneChangeThreshold;
+            this.roiTracking = "roi".equalsIgnoreCase(faceTracker);
+            this.faceBatchSize = Math.max(1, faceBatchSize);
+            if (!roiTracking && !"carry".equalsIgnoreCase(faceTracker)) {
+                throw new IllegalArgumentException("model.video.face.tracker must be carry or roi, got: " + faceTracker);
+            }
+            // Segment tasks mostly wait on their decoders; at most maxSegments per running analysis
+            this.segmentExecutor = this.maxSegments > 1
+                    ? daemonPool("video-segment-", scheduler.getMaxConcurrent() * this.maxSegments)
+                    : null;
+            this.decodeThreads = threads.getDecodeThreads(this.maxSegments);
+            // Each running stream holds a decode worker for its whole pass. A stream left waiting
+            // for one can stall the segments queued behind it (they drain in order), so a fixed
+            // pool must cover every stream that can run at once; 0 starts workers on demand
+            int maxStreams = scheduler.getMaxConcurrent() * this.maxSegments;
+            if (decodeWorkers > 0 && decodeWorkers < maxStreams) {
+                throw new IllegalArgumentException("model.video.pipeline.decode-workers must be 0 or at least "
+                        + "max-concurrent * segments.max (" + maxStreams + "), got: " + decodeWorkers);
+            }
+            this.decodeExecutor = daemonPool("video-decode-", Math.max(0, decodeWorkers));
+            this.decodeQueueCapacity = Math.max(1, decodeQueueCapacity);
+            this.decodeMaxSize = Math.max(0, decodeMaxSize);
+            this.fullResolutionCrops = fullResolutionCrops && this.decodeMaxSize > 0;
+            this.resultCache = resultCache;
+
+            this.handFeaturesEnabled = handFeaturesEnabled;
+            if (handFeaturesEnabled) {
+                this.handFeatures = new HandFeatureExtractor(imageSize, vectorizedFeatures);
+                if (vectorizedFeatures && !handFeatures.isVectorized()) {
+                    log.warn("Vectorized LBP kernel not available (build with -Pvector and start with "
+                            + "--add-modules jdk.incubator.vector), extracting features with the scalar kernel");
+                }
+                this.featureExecutor = daemonPool("hand-features-", featureThreads > 0
+                        ? featureThreads : Math.max(1, threads.getCores() / 2));
+                log.info("Hand-crafted features: {} kernel", handFeatures.isVectorized() ? "vector" : "scalar");
+            } else {
+                this.handFeatures = null;
+                this.featureExecutor = null;
+                log.info("Hand-crafted features disabled, feeding the model a zero glcm_lbp input");
+            }
 
             log.info("VideoAnalyzer initialized successfully - imageSize: {}, threshold: {}", imageSize, threshold);
 
@@ -119,42 +260,22 @@ public class VideoAnalyzer implements AutoCloseable {
         }
     }
 
-    private Net initializeDnnFaceDetector() throws IOException {
+    private FaceNetPool initializeDnnFaceDetector(int poolSize, MeterRegistry meterRegistry) throws IOException {
         try {
-            ClassPathResource prototxtResource = new ClassPathResource("models/deploy.prototxt");
-            ClassPathResource caffeModelResource = new ClassPathResource("models/res10_300x300_ssd_iter_140000.caffemodel");
+            Path modelsDir = modelCache.resolve("face-detector", "models");
+            Path prototxt = modelsDir.resolve("deploy.prototxt");
+            Path caffeModel = modelsDir.resolve("res10_300x300_ssd_iter_140000.caffemodel");
 
-            if (!prototxtResource.exists() || !caffeModelResource.exists()) {
+            if (!Files.exists(prototxt) || !Files.exists(caffeModel)) {
                 throw new IOException("Face detection model files not found in resources/models/");
             }
+            log.info("Prototxt: {}", prototxt);
+            log.info("Caffe model: {}", caffeModel);
 
-            // Extract files to temporary location for JAR compatibility
-            Path tempDir = Files.createTempDirectory("deepfake-models");
-            tempDir.toFile().deleteOnExit();
-
-            Path prototxtTemp = tempDir.resolve("deploy.prototxt");
-            Path caffeModelTemp = tempDir.resolve("res10_300x300_ssd_iter_140000.caffemodel");
-
-            // Copy files from JAR to temp directory
-            try (InputStream prototxtStream = prototxtResource.getInputStream();
-                 InputStream caffeModelStream = caffeModelResource.getInputStream()) {
-
-                Files.copy(prototxtStream, prototxtTemp, StandardCopyOption.REPLACE_EXISTING);
-                Files.copy(caffeModelStream, caffeModelTemp, StandardCopyOption.REPLACE_EXISTING);
-            }
-
-            // Make sure files are readable
-            prototxtTemp.toFile().deleteOnExit();
-            caffeModelTemp.toFile().deleteOnExit();
-
-            log.info("Extracted model files to: {}", tempDir);
-            log.info("Prototxt: {} (exists: {})", prototxtTemp, Files.exists(prototxtTemp));
-            log.info("Caffe model: {} (exists: {})", caffeModelTemp, Files.exists(caffeModelTemp));
-
-            return opencv_dnn.readNetFromCaffe(
-                    prototxtTemp.toString(),
-                    caffeModelTemp.toString()
-            );
+            return new FaceNetPool(poolSize, () -> opencv_dnn.readNetFromCaffe(
+                    prototxt.toString(),
+                    caffeModel.toString()
+            ), meterRegistry);
 
         } catch (Exception e) {
             log.error("Failed to initialize DNN face detector: {}", e.getMessage(), e);
@@ -162,79 +283,90 @@ public class VideoAnalyzer implements AutoCloseable {
         }
     }
 
+    private static ExecutorService daemonPool(String namePrefix, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return threads > 0 ? Executors.newFixedThreadPool(threads, factory) : Executors.newCachedThreadPool(factory);
+    }
+
     private void validateImageSize() {
         if (this.imageSize <= 0) {
             throw new IllegalArgumentException("imageSize must be greater than 0, got: " + this.imageSize);
         }
     }
 
-    private ThreadPoolExecutor createExecutorService() {
-        return new ThreadPoolExecutor(
-                2, 4, 60L, TimeUnit.SECONDS,
-                new LinkedBlockingQueue<>(200),
-                new ThreadPoolExecutor.CallerRunsPolicy()
-        );
+    private static FrameSampling parseSampling(String sampling) {
+        try {
+            return FrameSampling.parse(sampling);
+        } catch (DeepfakeException e) {
+            throw new IllegalArgumentException("Invalid model.video.sampling: " + sampling);
+        }
     }
 
     public Mono<DetectionResultResponse> analyzeVideo(String videoPath) {
-        if (!isProcessing.compareAndSet(false, true)) {
-            return Mono.error(new DeepfakeException(DetectionErrorCode.FAILED_TO_ANALYZE_VIDEO));
-        }
+        return analyzeVideo(videoPath, null, null);
+    }
 
+    public Mono<DetectionResultResponse> analyzeVideo(String videoPath, FrameSampling requestedSampling) {
+        return analyzeVideo(videoPath, requestedSampling, null);
+    }
+
+    /**
+     * Analyses the video, or returns the earlier result for the same content
+     * when {@code contentDigest} (see {@link ContentDigest}) is known.
+     */
+    public Mono<DetectionResultResponse> analyzeVideo(String videoPath, FrameSampling requestedSampling,
+                                                      String contentDigest) {
         long startTime = System.currentTimeMillis();
+        FrameSampling sampling = requestedSampling != null ? requestedSampling : defaultSampling;
 
-        String cacheKey = generateCacheKey(videoPath);
-        DetectionResultResponse cached = resultCache.getIfPresent(cacheKey);
-        if (cached != null) {
-            isProcessing.set(false);
+        String version = models.getCurrentVersion();
+        AnalysisRecord cached = resultCache.get(cacheKey(videoPath, contentDigest, sampling, version));
+        if (cached != null && isReusable(cached)) {
             log.info("Returning cached result for: {}", videoPath);
-            return Mono.just(cached);
+            DetectionResultResponse result = toResponse(cached,
+                    (System.currentTimeMillis() - startTime) / 1000.0, version);
+            result.setCached(true);
+            pipelineMetrics.cacheHit(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - startTime));
+            return Mono.just(result);
         }
 
-        return Mono.fromCallable(() -> {
-                    try {
-                        return testVideo(videoPath, threshold, startTime, cacheKey);
-                    } finally {
-                        isProcessing.set(false);
-                        System.gc();
+        // The model is pinned when the analysis starts, so a swap never splits one video
+        return scheduler.submit(() -> {
+                    try (ModelRegistry.Lease model = models.acquire()) {
+                        return testVideo(videoPath, sampling, startTime, contentDigest, model);
                     }
                 })
-                .subscribeOn(Schedulers.boundedElastic())
                 .timeout(Duration.ofMinutes(15))
-                .doOnError(error -> {
-                    isProcessing.set(false);
-                    log.error("Video analysis failed for {}: {}", videoPath, error.getMessage());
-                });
+                .doOnError(error -> log.error("Video analysis failed for {}: {}", videoPath, error.getMessage()));
     }
 
-    private DetectionResultResponse testVideo(String filepath, float threshold, long startTime, String cacheKey) {
+    private DetectionResultResponse testVideo(String filepath, FrameSampling sampling, long startTime,
+                                              String contentDigest, ModelRegistry.Lease model) {
         FFmpegFrameGrabber cap = null;
-        List<float[][][]> frames = new ArrayList<>();
+        boolean earlyExit;
+        DecodeStats stats = new DecodeStats();
+        VideoBlockScorer scorer = handFeaturesEnabled
+                ? new VideoBlockScorer(model.getBatcher(), handFeatures::extract, featureExecutor,
+                streamingEnabled, maxInFlightBlocks, buffers)
+                : new VideoBlockScorer(model.getBatcher(), frames -> new float[BlockTensorWriter.HAND_FEATURES],
+                Runnable::run, streamingEnabled, maxInFlightBlocks, buffers);
 
         try {
             cap = createGrabber(filepath);
-
-            while (true) {
-                Frame frame = cap.grabImage();
-                if (frame == null || frame.image == null) {
-                    break;
-                }
-
-                Mat mat = converter.convert(frame);
-                if (mat == null || mat.empty()) {
-                    continue;
-                }
-
-                float[][][] face = detectAndCropFace(mat);
-                mat.release();
-
-                if (face != null) {
-                    frames.add(face);
-                }
+            int segments = segmentCount(cap, sampling);
+            if (segments > 1) {
+                earlyExit = extractSegments(filepath, cap, sampling, segments, scorer, stats);
+            } else {
+                earlyExit = extractFaces(cap, sampling, Long.MIN_VALUE, Long.MAX_VALUE, face -> scoreFace(scorer, face), stats);
             }
-
         } catch (Exception e) {
             log.error("Error reading video: {}", e.getMessage(), e);
+            scorer.discard();
             throw new DeepfakeSilentException(DetectionErrorCode.FAILED_TO_ANALYZE_VIDEO);
         } finally {
             if (cap != null) {
@@ -242,291 +374,402 @@ public class VideoAnalyzer implements AutoCloseable {
             }
         }
 
-        if (frames.size() < 4) {
-            log.warn("❌ Not enough valid face frames: {}", frames.size());
-            DetectionResultResponse result = DetectionResultResponse.builder()
-                    .result("UNKNOWN")
-                    .score(0.0f)
-                    .processingTime((System.currentTimeMillis() - startTime) / 1000.0)
-                    .fakeRatio("0.00%")
-                    .fake(false)
-                    .build();
-            resultCache.put(cacheKey, result);
-            return result;
-        }
-
-        List<float[][][][]> blocks = new ArrayList<>();
-        for (int i = 0; i <= frames.size() - 4; i += 4) {
-            float[][][][] block = stackFrames(frames, i);
-            if (block != null) {
-                blocks.add(block);
+        BlockScores scores = scorer.finish();
+        log.info("Frame sampling {}: {} frames decoded, {} skipped", sampling,
+                stats.getFramesDecoded(), stats.getFramesSkipped());
+        log.info("Face detection: {} full detections, {} tracked frames",
+                stats.getFullDetections(), stats.getTrackedFrames());
+
+        AnalysisRecord record = AnalysisRecord.of(scores, stats, earlyExit);
+        resultCache.put(cacheKey(filepath, contentDigest, sampling, model.getVersion()), record);
+
+        if (record.getBlocks() == 0) {
+            log.warn("❌ Not enough valid face frames: {}", record.getFaceFrames());
+        } else {
+            float[] preds = record.getPredictions();
+            StringBuilder predsStr = new StringBuilder("[");
+            for (int i = 0; i < preds.length; i++) {
+                predsStr.append(String.format("%.4f", preds[i]));
+                if (i < preds.length - 1) predsStr.append(", ");
             }
+            predsStr.append("]");
+            log.info("Predictions: {}", predsStr.toString());
+            log.info("Fake block ratio: {:.2%}", record.getFakeRatio());
+            log.info("Max prediction score: {:.4f}", record.getMaxScore());
         }
 
-        if (blocks.isEmpty()) {
-            log.warn("No blocks created from frames");
-            DetectionResultResponse result = DetectionResultResponse.builder()
+        long elapsedMillis = System.currentTimeMillis() - startTime;
+        pipelineMetrics.analysed(record.getBlocks(), TimeUnit.MILLISECONDS.toNanos(elapsedMillis));
+        DetectionResultResponse result = toResponse(record, elapsedMillis / 1000.0, model.getVersion());
+        log.info("Final Result for Video: {}", result.getResult());
+        log.info("Confidence Score: {}", result.getScore());
+        return result;
+    }
+
+    /**
+     * Applies the current threshold to an analysis record. Called for fresh
+     * and cached records alike, so both always agree with the configuration.
+     */
+    private DetectionResultResponse toResponse(AnalysisRecord record, double processingTime, String modelVersion) {
+        if (record.getBlocks() == 0) {
+            return DetectionResultResponse.builder()
                     .result("UNKNOWN")
                     .score(0.0f)
-                    .processingTime((System.currentTimeMillis() - startTime) / 1000.0)
+                    .processingTime(processingTime)
                     .fakeRatio("0.00%")
                     .fake(false)
+                    .framesDecoded(record.getFramesDecoded())
+                    .framesSkipped(record.getFramesSkipped())
+                    .blocksEvaluated(0)
+                    .modelVersion(modelVersion)
                     .build();
-            resultCache.put(cacheKey, result);
-            return result;
-        }
-
-        float[][][][][] X_block = new float[blocks.size()][imageSize][imageSize][4][3];
-        for (int b = 0; b < blocks.size(); b++) {
-            float[][][][] block = blocks.get(b);
-            for (int h = 0; h < imageSize; h++) {
-                for (int w = 0; w < imageSize; w++) {
-                    for (int d = 0; d < 4; d++) {
-                        for (int c = 0; c < 3; c++) {
-                            X_block[b][h][w][d][c] = block[h][w][d][c] / 255.0f;
-                        }
-                    }
-                }
-            }
-        }
-
-        float[][] X_hand = generateDummyGlcmLbp(X_block.length);
-
-        float[] preds = modelPredict(X_block, X_hand);
-
-        float fakeRatio = calculateMean(preds, 0.5f);
-
-        float maxScore = findMax(preds);
-
-        StringBuilder predsStr = new StringBuilder("[");
-        for (int i = 0; i < preds.length; i++) {
-            predsStr.append(String.format("%.4f", preds[i]));
-            if (i < preds.length - 1) predsStr.append(", ");
         }
-        predsStr.append("]");
-        log.info("Predictions: {}", predsStr.toString());
-        log.info("Fake block ratio: {:.2%}", fakeRatio);
-        log.info("Max prediction score: {:.4f}", maxScore);
 
-        double processingTime = (System.currentTimeMillis() - startTime) / 1000.0;
-
-        String result = fakeRatio >= threshold ? "FAKE" : "REAL";
+        float fakeRatio = record.getFakeRatio();
         boolean isFake = fakeRatio >= threshold;
-        String fakeRatioPercentage = String.format("%.2f%%", fakeRatio * 100);
-
-        log.info("Final Result for Video: {}", result);
-        log.info("Confidence Score: {}", maxScore);
 
-        DetectionResultResponse finalResult = DetectionResultResponse.builder()
-                .result(result)
-                .score(maxScore)
+        return DetectionResultResponse.builder()
+                .result(isFake ? "FAKE" : "REAL")
+                .score(record.getMaxScore())
                 .processingTime(processingTime)
-                .fakeRatio(fakeRatioPercentage)
+                .fakeRatio(String.format("%.2f%%", fakeRatio * 100))
                 .fake(isFake)
+                .framesDecoded(record.getFramesDecoded())
+                .framesSkipped(record.getFramesSkipped())
+                .blocksEvaluated(record.getBlocks())
+                .earlyExit(sequentialVerdict != null ? record.isEarlyExit() : null)
+                .modelVersion(modelVersion)
                 .build();
-
-        resultCache.put(cacheKey, finalResult);
-        return finalResult;
     }
 
-    private float[][][] detectAndCropFace(Mat frame) {
-        if (dnnNet == null) {
-            return null;
+    /**
+     * A complete record answers any threshold. One cut short by early exit only
+     * covers part of the video, so it is reused only while its blocks still
+     * settle the verdict under the current threshold and confidence.
+     */
+    private boolean isReusable(AnalysisRecord record) {
+        if (!record.isEarlyExit()) {
+            return true;
         }
+        return sequentialVerdict != null
+                && sequentialVerdict.evaluate(record.getBlocks(), record.getFakeBlocks())
+                != SequentialVerdict.Decision.UNDECIDED;
+    }
 
-        try {
-            int h = frame.rows();
-            int w = frame.cols();
-
-            Mat blob = opencv_dnn.blobFromImage(frame, 1.0, new Size(300, 300),
-                    new Scalar(104.0, 177.0, 123.0, 0),
-                    false, false, opencv_core.CV_32F);
-
-            dnnNet.setInput(blob);
-
-            Mat detections = dnnNet.forward();
-
-            FloatIndexer indexer = detections.createIndexer();
-            int numDetections = detections.size(2);
-
-            for (int i = 0; i < numDetections; i++) {
-                float confidence = indexer.get(0, 0, i, 2);
-
-                if (confidence > FACE_CONFIDENCE_THRESHOLD) {
-                    float x1 = indexer.get(0, 0, i, 3) * w;
-                    float y1 = indexer.get(0, 0, i, 4) * h;
-                    float x2 = indexer.get(0, 0, i, 5) * w;
-                    float y2 = indexer.get(0, 0, i, 6) * h;
-
-                    int x1_int = Math.max(0, (int) x1);
-                    int y1_int = Math.max(0, (int) y1);
-                    int x2_int = Math.min(w, (int) x2);
-                    int y2_int = Math.min(h, (int) y2);
-
-                    int width = x2_int - x1_int;
-                    int height = y2_int - y1_int;
-
-                    if (width > 0 && height > 0) {
-                        Rect faceRect = new Rect(x1_int, y1_int, width, height);
-                        Mat face = new Mat(frame, faceRect);
-
-                        if (!face.empty()) {
-                            Mat resized = new Mat();
-                            opencv_imgproc.resize(face, resized, new Size(imageSize, imageSize));
-
-                            Mat rgb = new Mat();
-                            opencv_imgproc.cvtColor(resized, rgb, opencv_imgproc.COLOR_BGR2RGB);
-
-                            float[][][] result = matToFloatArray(rgb);
-
-                            face.release();
-                            resized.release();
-                            rgb.release();
-                            indexer.release();
-                            blob.release();
-                            detections.release();
+    /**
+     * Decodes the frames in {@code [startMicros, endMicros)} from the grabber's
+     * current position, crops faces and hands them to {@code sink} in frame
+     * order. Returns {@code true} when the sink asked to stop early.
+     * <p>
+     * Native memory is freed deterministically rather than by the GC: the
+     * pass runs in its own {@link PointerScope}, which owns whatever the face
+     * detector allocates outside the buffer pool, and each decoded frame goes
+     * back to the pool as soon as it has been through detection.
+     */
+    private boolean extractFaces(FFmpegFrameGrabber grabber, FrameSampling sampling, long startMicros,
+                                 long endMicros, Predicate<byte[]> sink, DecodeStats stats) throws Exception {
+        FrameSampler sampler = FrameSampler.create(sampling, grabber);
+        sampler.setRange(startMicros, endMicros);
+        FaceDetector faceDetector = null;
+        List<Mat> pendingFrames = new ArrayList<>(faceBatchSize);
+
+        try (PointerScope arena = new PointerScope();
+             FaceNetPool.Lease lease = faceNetPool.lease();
+             FrameDecoder decoder = new FrameDecoder(sampler, lease.getConverter(), decodeQueueCapacity,
+                     pipelineMetrics, buffers)) {
+            faceDetector = new FaceDetector(lease.getNet(), imageSize, faceDetectInterval,
+                    sceneChangeThreshold, roiTracking, fullResolutionCrops ? decodeMaxSize : 0,
+                    buffers, pipelineMetrics);
+            decoder.start(decodeExecutor);
+
+            Mat mat;
+            while ((mat = decoder.take()) != null) {
+                if (faceBatchSize == 1) {
+                    byte[] face = faceDetector.detectAndCrop(mat);
+                    buffers.release(mat);
+                    pipelineMetrics.processed(PipelineMetrics.Stage.DETECT, 1);
+                    if (face != null && sink.test(face)) {
+                        return true;
+                    }
+                    continue;
+                }
 
-                            return result;
-                        }
-                        face.release();
+                pendingFrames.add(mat);
+                if (pendingFrames.size() == faceBatchSize) {
+                    if (detectPending(faceDetector, pendingFrames, sink)) {
+                        return true;
                     }
                 }
             }
 
-            indexer.release();
-            blob.release();
-            detections.release();
-
-        } catch (Exception e) {
-            log.error("Error in face detection: {}", e.getMessage());
+            return !pendingFrames.isEmpty() && detectPending(faceDetector, pendingFrames, sink);
+        } finally {
+            releaseAll(pendingFrames);
+            stats.record(sampler, faceDetector);
         }
-
-        return null;
     }
 
-    private float[][][] matToFloatArray(Mat mat) {
-        float[][][] result = new float[imageSize][imageSize][3];
-
-        byte[] data = new byte[(int) (mat.total() * mat.elemSize())];
-        mat.data().get(data);
-
-        for (int y = 0; y < imageSize; y++) {
-            for (int x = 0; x < imageSize; x++) {
-                int index = (y * imageSize + x) * 3;
-                result[y][x][0] = (float) (data[index] & 0xFF);
-                result[y][x][1] = (float) (data[index + 1] & 0xFF);
-                result[y][x][2] = (float) (data[index + 2] & 0xFF);
-            }
-        }
-
-        return result;
+    private boolean detectPending(FaceDetector faceDetector, List<Mat> frames, Predicate<byte[]> sink) {
+        byte[][] faces = faceDetector.detectAndCrop(frames);
+        pipelineMetrics.processed(PipelineMetrics.Stage.DETECT, frames.size());
+        releaseAll(frames);
+        return feedFaces(sink, faces);
     }
 
-    private float[][][][] stackFrames(List<float[][][]> frames, int startIdx) {
-        if (startIdx + 4 > frames.size()) {
-            return null;
+    private int segmentCount(FFmpegFrameGrabber grabber, FrameSampling sampling) {
+        if (maxSegments <= 1 || !sampling.isSegmentable()) {
+            return 1;
         }
+        long bySeconds = grabber.getLengthInTime() / (minSegmentSeconds * 1_000_000L);
+        return (int) Math.max(1, Math.min(maxSegments, bySeconds));
+    }
 
-        float[][][][] result = new float[imageSize][imageSize][4][3];
+    /**
+     * Splits the timeline into equal segments and decodes them in parallel,
+     * each with its own grabber seeked to the segment start (the first one
+     * reuses {@code cap}). Crops are scored strictly in segment order, so the
+     * blocks come out exactly as in a single pass; later segments buffer
+     * up to {@code segments.buffered-crops} crops each until the scorer
+     * reaches them, then wait, so memory stays flat however slow the earlier
+     * segments are.
+     */
+    private boolean extractSegments(String filepath, FFmpegFrameGrabber cap, FrameSampling sampling,
+                                    int segments, VideoBlockScorer scorer, DecodeStats stats) throws Exception {
+        long duration = cap.getLengthInTime();
+        AtomicBoolean stop = new AtomicBoolean();
+        List<BlockingQueue<byte[]>> queues = new ArrayList<>(segments);
+        List<Semaphore> slots = new ArrayList<>(segments);
+        List<Future<DecodeStats>> futures = new ArrayList<>(segments);
+        log.info("Decoding {} in {} parallel segments", filepath, segments);
+
+        boolean earlyExit = false;
+        try {
+            for (int i = 0; i < segments; i++) {
+                long start = duration * i / segments;
+                long end = i == segments - 1 ? Long.MAX_VALUE : duration * (i + 1) / segments;
+                boolean first = i == 0;
+                BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+                // Bounds the crops in the queue; the end marker does not need a slot
+                Semaphore segmentSlots = new Semaphore(segmentBufferedCrops);
+                queues.add(queue);
+                slots.add(segmentSlots);
+
+                futures.add(segmentExecutor.submit(() -> {
+                    DecodeStats segmentStats = new DecodeStats();
+                    FFmpegFrameGrabber grabber = first ? cap : null;
+                    try {
+                        if (!first) {
+                            grabber = createGrabber(filepath);
+                            grabber.setVideoTimestamp(start);
+                        }
+                        extractFaces(grabber, sampling, first ? Long.MIN_VALUE : start, end, face -> {
+                            if (!putCrop(queue, segmentSlots, face, stop)) {
+                                buffers.release(face);
+                                return true;
+                            }
+                            return stop.get();
+                        }, segmentStats);
+                        return segmentStats;
+                    } finally {
+                        queue.add(SEGMENT_END);
+                        if (!first && grabber != null) {
+                            cleanupGrabber(grabber, filepath);
+                        }
+                    }
+                }));
+            }
 
-        for (int frameIdx = 0; frameIdx < 4; frameIdx++) {
-            float[][][] frame = frames.get(startIdx + frameIdx);
-            for (int h = 0; h < imageSize; h++) {
-                for (int w = 0; w < imageSize; w++) {
-                    for (int c = 0; c < 3; c++) {
-                        result[h][w][frameIdx][c] = frame[h][w][c];
+            consume:
+            for (int i = 0; i < segments; i++) {
+                BlockingQueue<byte[]> queue = queues.get(i);
+                for (byte[] face = queue.take(); face != SEGMENT_END; face = queue.take()) {
+                    slots.get(i).release();
+                    if (scoreFace(scorer, face)) {
+                        earlyExit = true;
+                        break consume;
                     }
                 }
             }
+        } finally {
+            // Early exit or a failure: let the remaining segments wind down before cap is released
+            stop.set(true);
+            ExecutionException failure = null;
+            for (Future<DecodeStats> future : futures) {
+                try {
+                    stats.add(future.get());
+                } catch (ExecutionException e) {
+                    failure = failure != null ? failure : e;
+                }
+            }
+            // Crops the scorer never reached go back to the pool
+            for (BlockingQueue<byte[]> queue : queues) {
+                byte[] face;
+                while ((face = queue.poll()) != null) {
+                    if (face != SEGMENT_END) {
+                        buffers.release(face);
+                    }
+                }
+            }
+            if (failure != null && !earlyExit) {
+                throw failure;
+            }
         }
-
-        return result;
+        return earlyExit;
     }
 
-    private float[][] generateDummyGlcmLbp(int n) {
-        return new float[n][140];
-    }
-
-    private float[] modelPredict(float[][][][][] X_block, float[][] X_hand) {
+    /**
+     * Queues a segment's crop once the queue has a free slot. Returns
+     * {@code false} when the analysis stopped while waiting.
+     */
+    private static boolean putCrop(BlockingQueue<byte[]> queue, Semaphore slots, byte[] face, AtomicBoolean stop) {
         try {
-            int n = X_block.length;
-
-            var blockTensor = NdArrays.ofFloats(Shape.of(n, imageSize, imageSize, 4, 3));
-            var handTensor = NdArrays.ofFloats(Shape.of(n, 140));
-
-            for (int b = 0; b < n; b++) {
-                for (int h = 0; h < imageSize; h++) {
-                    for (int w = 0; w < imageSize; w++) {
-                        for (int d = 0; d < 4; d++) {
-                            for (int c = 0; c < 3; c++) {
-                                blockTensor.setFloat(X_block[b][h][w][d][c], b, h, w, d, c);
-                            }
-                        }
-                    }
+            while (!stop.get()) {
+                if (slots.tryAcquire(50, TimeUnit.MILLISECONDS)) {
+                    queue.add(face);
+                    return true;
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
 
-            for (int b = 0; b < n; b++) {
-                for (int f = 0; f < 140; f++) {
-                    handTensor.setFloat(X_hand[b][f], b, f);
-                }
+    private boolean feedFaces(Predicate<byte[]> sink, byte[][] faces) {
+        for (byte[] face : faces) {
+            if (face != null && sink.test(face)) {
+                return true;
             }
+        }
+        return false;
+    }
 
-            try (TFloat32 inBlock = TFloat32.tensorOf(blockTensor);
-                 TFloat32 inHand = TFloat32.tensorOf(handTensor)) {
+    /**
+     * Adds one crop to the scorer and reports whether early exit has settled
+     * the verdict.
+     */
+    private boolean scoreFace(VideoBlockScorer scorer, byte[] face) {
+        if (face == null) {
+            return false;
+        }
+        int scoredBefore = scorer.getScoredBlocks();
+        scorer.addFace(face);
+        if (sequentialVerdict == null || scorer.getScoredBlocks() == scoredBefore) {
+            return false;
+        }
+        SequentialVerdict.Decision decision = sequentialVerdict.evaluate(
+                scorer.getScoredBlocks(), scorer.getFakeBlocks());
+        if (decision == SequentialVerdict.Decision.UNDECIDED) {
+            return false;
+        }
+        log.info("Verdict {} settled after {} blocks ({} fake), stopping early",
+                decision, scorer.getScoredBlocks(), scorer.getFakeBlocks());
+        return true;
+    }
 
-                TFloat32 out = (TFloat32) session.runner()
-                        .feed("serving_default_video_block:0", inBlock)
-                        .feed("serving_default_glcm_lbp:0", inHand)
-                        .fetch("StatefulPartitionedCall:0")
-                        .run().get(0);
+    private void releaseAll(List<Mat> frames) {
+        for (Mat frame : frames) {
+            buffers.release(frame);
+        }
+        frames.clear();
+    }
 
-                float[] preds = new float[n];
-                for (int i = 0; i < n; i++) {
-                    preds[i] = out.getFloat(i, 0);
-                }
+    /**
+     * Earlier result for this content and sampling, without analysing anything;
+     * lets callers skip their own probing of a re-uploaded file.
+     */
+    public DetectionResultResponse findCachedResult(String contentDigest, FrameSampling requestedSampling) {
+        FrameSampling sampling = requestedSampling != null ? requestedSampling : defaultSampling;
+        String version = models.getCurrentVersion();
+        AnalysisRecord cached = resultCache.get(generateCacheKey(contentDigest, sampling, version));
+        if (cached == null || !isReusable(cached)) {
+            return null;
+        }
+        DetectionResultResponse result = toResponse(cached, 0.0, version);
+        result.setCached(true);
+        return result;
+    }
 
-                out.close();
-                return preds;
-            }
+    public String getModelVersion() {
+        return models.getCurrentVersion();
+    }
+
+    /**
+     * Loads {@code version} from {@code model.video.versions.directory} and
+     * switches new analyses to it; running ones finish on the model they
+     * started with. The version string is part of the result-cache key, so
+     * results of the previous model are never served for the new one.
+     */
+    public void switchModelVersion(String version) {
+        if (modelVersionsDir == null || version == null || !MODEL_VERSION_PATTERN.matcher(version).matches()) {
+            throw new DeepfakeSilentException(DetectionErrorCode.MODEL_VERSION_NOT_FOUND);
+        }
+        Path directory = modelVersionsDir.resolve(version);
+        if (!Files.isDirectory(directory)) {
+            throw new DeepfakeSilentException(DetectionErrorCode.MODEL_VERSION_NOT_FOUND);
+        }
+        try {
+            models.load(version, directory);
         } catch (Exception e) {
-            log.error("Model prediction failed: {}", e.getMessage(), e);
-            throw new DeepfakeSilentException(DetectionErrorCode.FAILED_TO_ANALYZE_VIDEO);
+            log.error("Failed to load model {} from {}: {}", version, directory, e.getMessage(), e);
+            throw new DeepfakeSilentException(DetectionErrorCode.FAILED_TO_LOAD_MODEL);
         }
     }
 
-    private float calculateMean(float[] preds, float threshold) {
-        int count = 0;
-        for (float pred : preds) {
-            if (pred > threshold) {
-                count++;
+    /**
+     * Times every inference backend on the current model version with the
+     * same synthetic batches. Backends that cannot load it (e.g. no ONNX
+     * export next to the SavedModel) are reported with their error.
+     */
+    public List<BackendBenchmark.Result> benchmarkBackends(int batchSize, int batches) {
+        int size = Math.max(1, Math.min(batchSize, maxBatchSize));
+        Path directory = models.getCurrentDirectory();
+        List<BackendBenchmark.Result> results = new ArrayList<>();
+        for (String name : List.of(InferenceBackend.TENSORFLOW, InferenceBackend.OPENCV_ONNX)) {
+            try (InferenceBackend backend = InferenceBackend.load(name, directory, imageSize, onnxFile, threads)) {
+                BackendBenchmark.Result result = BackendBenchmark.run(backend, imageSize, size, batches);
+                log.info("Backend {}: {} blocks/s, mean {} ms, p95 {} ms per batch of {}", name,
+                        String.format("%.1f", result.blocksPerSecond()), String.format("%.2f", result.meanMillis()),
+                        String.format("%.2f", result.p95Millis()), size);
+                results.add(result);
+            } catch (Exception e) {
+                log.warn("Backend {} unavailable for {}: {}", name, directory, e.getMessage());
+                results.add(BackendBenchmark.Result.failed(name, size, e.getMessage()));
             }
         }
-        return (float) count / preds.length;
+        return results;
     }
 
-    private float findMax(float[] preds) {
-        float max = Float.MIN_VALUE;
-        for (float pred : preds) {
-            if (pred > max) {
-                max = pred;
-            }
-        }
-        return max;
+    private String cacheKey(String videoPath, String contentDigest, FrameSampling sampling, String modelVersion) {
+        return contentDigest != null
+                ? generateCacheKey(contentDigest, sampling, modelVersion)
+                : generatePathCacheKey(videoPath, sampling, modelVersion);
+    }
+
+    // The threshold is applied when a record is read, so it is deliberately not part of the key
+    private String generateCacheKey(String contentDigest, FrameSampling sampling, String modelVersion) {
+        return String.format("%s_%s_%d_%s_%s", contentDigest, modelVersion, imageSize, decodeSizeKey(), sampling);
     }
 
-    private String generateCacheKey(String videoPath) {
+    private String generatePathCacheKey(String videoPath, FrameSampling sampling, String modelVersion) {
         try {
             Path path = Paths.get(videoPath);
             long fileSize = Files.size(path);
             long lastModified = Files.getLastModifiedTime(path).toMillis();
-            return String.format("%s_%d_%d_%d_%.2f",
-                    path.getFileName().toString(), fileSize, lastModified, imageSize, threshold);
+            return String.format("%s_%d_%d_%s_%d_%s_%s",
+                    path.getFileName().toString(), fileSize, lastModified, modelVersion, imageSize, decodeSizeKey(),
+                    sampling);
         } catch (IOException e) {
             return videoPath + "_" + System.currentTimeMillis();
         }
     }
 
+    // The working size, where faces are cropped from and the hand-crafted features all change the predictions
+    private String decodeSizeKey() {
+        return (fullResolutionCrops ? decodeMaxSize + "f" : String.valueOf(decodeMaxSize))
+                + (handFeaturesEnabled ? "h" : "");
+    }
+
     private FFmpegFrameGrabber createGrabber(String videoPath) {
         try {
             Path path = Paths.get(videoPath);
@@ -537,13 +780,16 @@ public class VideoAnalyzer implements AutoCloseable {
         } catch (IOException | DeepfakeException e) {
         }
 
+        long start = System.nanoTime();
         FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(videoPath);
         try {
             grabber.setOption("analyzeduration", "10000000");
             grabber.setOption("probesize", "10000000");
-            grabber.setVideoOption("threads", "2");
+            grabber.setVideoOption("threads", String.valueOf(decodeThreads));
             grabber.setImageMode(FFmpegFrameGrabber.ImageMode.COLOR);
             grabber.start();
+            pipelineMetrics.processed(PipelineMetrics.Stage.PROBE, 1);
+            limitDecodeSize(grabber);
 
             long durationMicro = grabber.getLengthInTime();
             long durationSec = durationMicro / 1_000_000;
@@ -555,7 +801,32 @@ public class VideoAnalyzer implements AutoCloseable {
         } catch (Exception e) {
             cleanupGrabber(grabber, videoPath);
             throw new DeepfakeSilentException(DetectionErrorCode.FILE_COPY_ERROR);
+        } finally {
+            pipelineMetrics.time(PipelineMetrics.Stage.PROBE, start);
+        }
+    }
+
+    /**
+     * Has FFmpeg scale frames down while converting them, so the longer side
+     * is at most {@code model.video.decode.max-size}; smaller videos keep
+     * their size. Face boxes are normalised, so detection and cropping work
+     * the same at any size, on far fewer pixels for high-resolution uploads.
+     * With full-resolution crops the frames are decoded at source size and
+     * the face detector scales its own working copy instead.
+     */
+    private void limitDecodeSize(FFmpegFrameGrabber grabber) {
+        int width = grabber.getImageWidth();
+        int height = grabber.getImageHeight();
+        int longer = Math.max(width, height);
+        if (decodeMaxSize == 0 || fullResolutionCrops || longer <= decodeMaxSize) {
+            return;
         }
+        double scale = (double) decodeMaxSize / longer;
+        grabber.setImageWidth(Math.max(1, (int) Math.round(width * scale)));
+        grabber.setImageHeight(Math.max(1, (int) Math.round(height * scale)));
+        // Averages the source pixels instead of sampling them, like INTER_AREA
+        grabber.setImageScalingFlags(swscale.SWS_AREA);
+        log.debug("Decoding {}x{} video at {}x{}", width, height, grabber.getImageWidth(), grabber.getImageHeight());
     }
 
     private void cleanupGrabber(FFmpegFrameGrabber grabber, String videoPath) {
@@ -568,85 +839,27 @@ public class VideoAnalyzer implements AutoCloseable {
         }
     }
 
-    private Path extractModelFromResources() throws IOException {
-        try {
-            ClassPathResource resource = new ClassPathResource(modelDir);
-            if (!resource.exists()) {
-                throw new IOException("Resource folder " + modelDir + " not found in classpath.");
-            }
-
-            Path tempDir = Files.createTempDirectory("model-");
-            tempDir.toFile().deleteOnExit();
-
-            // If running from JAR, we need to extract differently
-            if (resource.getURI().toString().startsWith("jar:")) {
-                log.info("Extracting model from JAR...");
-                extractFromJar(resource, tempDir);
-            } else {
-                // Running from filesystem (development)
-                Path sourceDir = resource.getFile().toPath();
-                Files.walk(sourceDir).forEach(source -> {
-                    try {
-                        Path destination = tempDir.resolve(sourceDir.relativize(source).toString());
-                        if (Files.isDirectory(source)) {
-                            Files.createDirectories(destination);
-                        } else {
-                            Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING);
-                        }
-                    } catch (IOException e) {
-                        throw new RuntimeException("Error copying " + source + " to " + tempDir, e);
-                    }
-                });
-            }
-
-            log.info("Model extracted to: {}", tempDir);
-            return tempDir;
-
-        } catch (Exception e) {
-            log.error("Failed to extract model from resources: {}", e.getMessage(), e);
-            throw new IOException("Failed to extract model: " + e.getMessage(), e);
-        }
-    }
-
-    private void extractFromJar(ClassPathResource resource, Path tempDir) throws IOException {
-        // For JAR files, we need to extract the specific files we know about
-        String[] modelFiles = {"saved_model.pb", "variables/variables.data-00000-of-00001", "variables/variables.index"};
-
-        for (String fileName : modelFiles) {
-            ClassPathResource fileResource = new ClassPathResource(modelDir + "/" + fileName);
-            if (fileResource.exists()) {
-                Path targetPath = tempDir.resolve(fileName);
-
-                // Create parent directories if needed
-                Files.createDirectories(targetPath.getParent());
-
-                try (InputStream inputStream = fileResource.getInputStream()) {
-                    Files.copy(inputStream, targetPath, StandardCopyOption.REPLACE_EXISTING);
-                    targetPath.toFile().deleteOnExit();
-                }
-
-                log.info("Extracted: {}", fileName);
-            }
-        }
-    }
-
     @PreDestroy
     @Override
     public void close() {
         try {
-            executorService.shutdown();
-            if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
-                executorService.shutdownNow();
+            if (segmentExecutor != null) {
+                segmentExecutor.shutdownNow();
             }
-
-            if (model != null) {
-                model.close();
+            if (models != null) {
+                models.close();
+            }
+            if (decodeExecutor != null) {
+                decodeExecutor.shutdownNow();
+            }
+            if (featureExecutor != null) {
+                featureExecutor.shutdownNow();
             }
-            if (dnnNet != null) {
-                dnnNet.close();
+            if (faceNetPool != null) {
+                faceNetPool.close();
             }
-            if (resultCache != null) {
-                resultCache.invalidateAll();
+            if (buffers != null) {
+                buffers.close();
             }
 
             log.info("VideoAnalyzer resources released");
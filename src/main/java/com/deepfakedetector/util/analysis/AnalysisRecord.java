@@ -0,0 +1,58 @@
+package com.deepfakedetector.util.analysis;
+
+import lombok.Getter;
+
+/**
+ * What one analysis measured, before any video threshold is applied: the raw
+ * block predictions plus decode counters. The verdict, fake ratio and score
+ * are derived from it on every read, so cached records stay valid when the
+ * threshold is re-tuned.
+ */
+@Getter
+public class AnalysisRecord {
+
+    // Never modified after construction; shared by every reader of a cached record
+    private final float[] predictions;
+    private final int faceFrames;
+    private final int framesDecoded;
+    private final int framesSkipped;
+    // Decoding stopped once the verdict settled, so predictions cover a prefix of the video
+    private final boolean earlyExit;
+    private final int fakeBlocks;
+    private final float maxScore;
+
+    public AnalysisRecord(float[] predictions, int faceFrames, int framesDecoded, int framesSkipped,
+                          boolean earlyExit) {
+        this.predictions = predictions;
+        this.faceFrames = faceFrames;
+        this.framesDecoded = framesDecoded;
+        this.framesSkipped = framesSkipped;
+        this.earlyExit = earlyExit;
+
+        int fake = 0;
+        float max = Float.MIN_VALUE;
+        for (float pred : predictions) {
+            if (pred > VideoBlockScorer.FAKE_BLOCK_THRESHOLD) {
+                fake++;
+            }
+            if (pred > max) {
+                max = pred;
+            }
+        }
+        this.fakeBlocks = fake;
+        this.maxScore = max;
+    }
+
+    public static AnalysisRecord of(BlockScores scores, DecodeStats stats, boolean earlyExit) {
+        return new AnalysisRecord(scores.getPredictions(), scores.getFaceFrames(),
+                stats.getFramesDecoded(), stats.getFramesSkipped(), earlyExit);
+    }
+
+    public int getBlocks() {
+        return predictions.length;
+    }
+
+    public float getFakeRatio() {
+        return predictions.length == 0 ? 0.0f : (float) fakeBlocks / predictions.length;
+    }
+}
@@ -0,0 +1,300 @@
+package com.deepfakedetector.util.analysis;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analysis records keyed by upload content, model version and analysis
+ * settings, shared by every detection endpoint. Records hold raw predictions
+ * rather than verdicts, so the video threshold is not part of the key.
+ * <p>
+ * Two tiers: a per-node Caffeine cache in front of Redis, which survives
+ * restarts and is shared by all nodes. Redis writes happen in the background,
+ * and the entry cap is enforced by a periodic trim rather than on every write,
+ * so Redis may briefly hold up to one trim interval's worth of writes beyond
+ * it. After a Redis error the tier is skipped for a cool-down period, so an
+ * outage only costs cache hits, never requests. The tier talks to Redis over
+ * its own Lettuce connection with short connect and command timeouts, leaving
+ * the application's other Redis caches on the shared settings.
+ */
+@Slf4j
+@Component
+public class AnalysisResultCache {
+
+    public static final String REQUESTS_METER_NAME = "deepfake.result-cache.requests";
+    public static final String LOAD_METER_NAME = "deepfake.result-cache.load";
+    public static final String ERRORS_METER_NAME = "deepfake.result-cache.errors";
+
+    private static final String KEY_PREFIX = "deepfake:result:";
+    // Sorted set of stored keys by write time, used to cap the number of Redis entries
+    private static final String INDEX_KEY = "deepfake:result-index";
+
+    private final Cache<String, AnalysisRecord> results;
+    private final RedisTemplate<String, byte[]> redis;
+    private final LettuceConnectionFactory redisConnection;
+    private final Duration redisTtl;
+    private final long redisMaxEntries;
+    private final long redisCooldownNanos;
+    private final ScheduledExecutorService redisWriter;
+    private volatile long redisRetryAt;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter l2Errors;
+    private final Timer l1Load;
+    private final Timer l2Load;
+
+    public AnalysisResultCache(
+            @Value("${model.video.result-cache.max-entries:1000}") long maxEntries,
+            @Value("${model.video.result-cache.ttl-minutes:30}") long ttlMinutes,
+            @Value("${model.video.result-cache.redis.enabled:false}") boolean redisEnabled,
+            @Value("${model.video.result-cache.redis.ttl-hours:168}") long redisTtlHours,
+            @Value("${model.video.result-cache.redis.max-entries:100000}") long redisMaxEntries,
+            @Value("${model.video.result-cache.redis.cooldown-seconds:30}") long redisCooldownSeconds,
+            @Value("${model.video.result-cache.redis.trim-interval-seconds:60}") long redisTrimIntervalSeconds,
+            @Value("${model.video.result-cache.redis.timeout-ms:500}") long redisTimeoutMs,
+            ObjectProvider<RedisConnectionFactory> redisConnectionFactory,
+            MeterRegistry registry
+    ) {
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+
+        RedisConnectionFactory shared = redisEnabled ? redisConnectionFactory.getIfAvailable() : null;
+        LettuceConnectionFactory connectionFactory = shared instanceof LettuceConnectionFactory lettuce
+                ? withTimeout(lettuce, Duration.ofMillis(redisTimeoutMs))
+                : null;
+        if (shared != null && connectionFactory == null) {
+            log.warn("Result cache Redis tier needs the Lettuce client, got {}; tier disabled",
+                    shared.getClass().getName());
+        }
+        if (connectionFactory != null) {
+            RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+            template.setConnectionFactory(connectionFactory);
+            template.setKeySerializer(RedisSerializer.string());
+            template.setValueSerializer(RedisSerializer.byteArray());
+            template.afterPropertiesSet();
+            this.redis = template;
+            this.redisConnection = connectionFactory;
+            this.redisWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "result-cache-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long trimInterval = Math.max(1, redisTrimIntervalSeconds);
+            this.redisWriter.scheduleWithFixedDelay(this::trimRedis, trimInterval, trimInterval, TimeUnit.SECONDS);
+        } else {
+            this.redis = null;
+            this.redisConnection = null;
+            this.redisWriter = null;
+        }
+        this.redisTtl = Duration.ofHours(redisTtlHours);
+        this.redisMaxEntries = redisMaxEntries;
+        this.redisCooldownNanos = TimeUnit.SECONDS.toNanos(redisCooldownSeconds);
+        this.redisRetryAt = System.nanoTime();
+
+        this.l1Hits = requests(registry, "l1", "hit");
+        this.l1Misses = requests(registry, "l1", "miss");
+        this.l2Hits = requests(registry, "l2", "hit");
+        this.l2Misses = requests(registry, "l2", "miss");
+        this.l2Errors = Counter.builder(ERRORS_METER_NAME)
+                .description("Result cache operations that failed")
+                .tag("tier", "l2")
+                .register(registry);
+        this.l1Load = load(registry, "l1");
+        this.l2Load = load(registry, "l2");
+
+        log.info("AnalysisResultCache initialized - maxEntries: {}, ttl: {}min, redis: {}",
+                maxEntries, ttlMinutes, redis != null ? "ttl " + redisTtlHours + "h, max " + redisMaxEntries : "off");
+    }
+
+    private static Counter requests(MeterRegistry registry, String tier, String result) {
+        return Counter.builder(REQUESTS_METER_NAME)
+                .description("Result cache lookups")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static Timer load(MeterRegistry registry, String tier) {
+        return Timer.builder(LOAD_METER_NAME)
+                .description("Time to look up a result in a cache tier")
+                .tag("tier", tier)
+                .register(registry);
+    }
+
+    public AnalysisRecord get(String key) {
+        long start = System.nanoTime();
+        AnalysisRecord cached = results.getIfPresent(key);
+        l1Load.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (cached != null) {
+            l1Hits.increment();
+            return cached;
+        }
+        l1Misses.increment();
+
+        cached = getFromRedis(key);
+        if (cached != null) {
+            results.put(key, cached);
+        }
+        return cached;
+    }
+
+    public void put(String key, AnalysisRecord record) {
+        results.put(key, record);
+        if (redisAvailable()) {
+            try {
+                redisWriter.execute(() -> putInRedis(key, record));
+            } catch (RejectedExecutionException e) {
+                log.debug("Result cache writer is shut down, not storing {} in Redis", key);
+            }
+        }
+    }
+
+    public long size() {
+        return results.estimatedSize();
+    }
+
+    /**
+     * Drops this node's entries only; the shared Redis tier is left alone.
+     */
+    public void invalidateAll() {
+        results.invalidateAll();
+    }
+
+    private AnalysisRecord getFromRedis(String key) {
+        if (!redisAvailable()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            byte[] data = redis.opsForValue().get(KEY_PREFIX + key);
+            AnalysisRecord decoded = data == null ? null : ResultCodec.decode(data);
+            (decoded != null ? l2Hits : l2Misses).increment();
+            return decoded;
+        } catch (RuntimeException e) {
+            redisFailed("read", e);
+            return null;
+        } finally {
+            l2Load.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void putInRedis(String key, AnalysisRecord record) {
+        if (!redisAvailable()) {
+            return;
+        }
+        try {
+            String redisKey = KEY_PREFIX + key;
+            redis.opsForValue().set(redisKey, ResultCodec.encode(record), redisTtl);
+            redis.opsForZSet().add(INDEX_KEY, redisKey.getBytes(StandardCharsets.UTF_8),
+                    System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            redisFailed("write", e);
+        }
+    }
+
+    /**
+     * Runs on the writer thread every trim interval, so writes never pay for
+     * the size check.
+     */
+    private void trimRedis() {
+        if (!redisAvailable()) {
+            return;
+        }
+        try {
+            Long size = redis.opsForZSet().zCard(INDEX_KEY);
+            if (size == null || size <= redisMaxEntries) {
+                return;
+            }
+            // Evict the oldest entries beyond the cap; expired keys fall out of the index the same way
+            Set<byte[]> oldest = redis.opsForZSet().range(INDEX_KEY, 0, size - redisMaxEntries - 1);
+            if (oldest == null || oldest.isEmpty()) {
+                return;
+            }
+            List<String> evicted = new ArrayList<>(oldest.size());
+            for (byte[] key : oldest) {
+                evicted.add(new String(key, StandardCharsets.UTF_8));
+            }
+            redis.unlink(evicted);
+            redis.opsForZSet().removeRange(INDEX_KEY, 0, size - redisMaxEntries - 1);
+        } catch (RuntimeException e) {
+            redisFailed("trim", e);
+        }
+    }
+
+    private boolean redisAvailable() {
+        return redis != null && System.nanoTime() - redisRetryAt >= 0;
+    }
+
+    private void redisFailed(String operation, RuntimeException e) {
+        l2Errors.increment();
+        redisRetryAt = System.nanoTime() + redisCooldownNanos;
+        log.warn("Redis result cache {} failed, skipping Redis for {}s: {}", operation,
+                TimeUnit.NANOSECONDS.toSeconds(redisCooldownNanos), e.getMessage());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (redisWriter != null) {
+            redisWriter.shutdown();
+        }
+        if (redisConnection != null) {
+            redisConnection.destroy();
+        }
+    }
+
+    /**
+     * Copy of the application's Redis connection settings (standalone,
+     * sentinel or cluster) whose connect and command timeouts are
+     * {@code timeout}, so only this tier gives up quickly on a slow server.
+     */
+    private static LettuceConnectionFactory withTimeout(LettuceConnectionFactory shared, Duration timeout) {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder client = LettuceClientConfiguration.builder()
+                .commandTimeout(timeout)
+                .clientOptions(ClientOptions.builder()
+                        .socketOptions(SocketOptions.builder().connectTimeout(timeout).build())
+                        .build());
+        if (shared.isUseSsl()) {
+            client.useSsl();
+        }
+        RedisConfiguration configuration = shared.getClusterConfiguration() != null
+                ? shared.getClusterConfiguration()
+                : shared.getSentinelConfiguration() != null
+                ? shared.getSentinelConfiguration()
+                : shared.getStandaloneConfiguration();
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(configuration, client.build());
+        factory.afterPropertiesSet();
+        factory.start();
+        return factory;
+    }
+}
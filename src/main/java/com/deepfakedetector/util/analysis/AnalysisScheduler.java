@@ -0,0 +1,139 @@
+package com.deepfakedetector.util.analysis;
+
+import com.deepfakedetector.exception.DeepfakeSilentException;
+import com.deepfakedetector.exception.DetectionErrorCode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Component
+public class AnalysisScheduler {
+
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final long queueTimeoutNanos;
+    private final ThreadPoolExecutor executor;
+
+    public AnalysisScheduler(
+            @Value("${model.video.analysis.max-concurrent:0}") int maxConcurrent,
+            @Value("${model.video.analysis.queue-capacity:16}") int queueCapacity,
+            @Value("${model.video.analysis.queue-timeout-ms:120000}") long queueTimeoutMs
+    ) {
+        // 0 means "size to the host": one analysis per two cores, at least one
+        this.maxConcurrent = maxConcurrent > 0
+                ? maxConcurrent
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs);
+        this.executor = new ThreadPoolExecutor(
+                this.maxConcurrent, this.maxConcurrent, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity),
+                namedThreads(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+
+        log.info("AnalysisScheduler initialized - maxConcurrent: {}, queueCapacity: {}, queueTimeout: {}ms",
+                this.maxConcurrent, this.queueCapacity, queueTimeoutMs);
+    }
+
+    public <T> Mono<T> submit(Callable<T> task) {
+        return Mono.create(sink -> {
+            AtomicReference<Disposable> queueTimer = new AtomicReference<>();
+            Future<?> future;
+            try {
+                future = executor.submit(() -> {
+                    Disposable timer = queueTimer.get();
+                    if (timer != null) {
+                        timer.dispose();
+                    }
+                    try {
+                        sink.success(task.call());
+                    } catch (Throwable t) {
+                        sink.error(t);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.warn("Analysis queue is full ({} running, {} waiting), rejecting request",
+                        executor.getActiveCount(), executor.getQueue().size());
+                sink.error(new DeepfakeSilentException(DetectionErrorCode.ANALYSIS_QUEUE_FULL));
+                return;
+            }
+
+            // The deadline fires while the task is still queued, so the caller fails (and lets go of
+            // its connection and upload) on time instead of when a worker finally picks it up.
+            // cancel(false) only succeeds before the task has started, so a running analysis is never cut short.
+            queueTimer.set(Schedulers.parallel().schedule(() -> {
+                if (future.cancel(false)) {
+                    executor.remove((Runnable) future);
+                    log.warn("Analysis waited longer than {}ms in queue, dropping it",
+                            TimeUnit.NANOSECONDS.toMillis(queueTimeoutNanos));
+                    sink.error(new DeepfakeSilentException(DetectionErrorCode.ANALYSIS_QUEUE_TIMEOUT));
+                }
+            }, queueTimeoutNanos, TimeUnit.NANOSECONDS));
+
+            // A cancelled subscriber (e.g. request timeout) frees its queue slot immediately
+            sink.onCancel(() -> {
+                queueTimer.get().dispose();
+                if (future.cancel(false)) {
+                    executor.remove((Runnable) future);
+                }
+            });
+        });
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getRunningCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    private static ThreadFactory namedThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "video-analysis-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Analysis workers did not terminate gracefully, forcing shutdown");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("AnalysisScheduler shut down");
+    }
+}
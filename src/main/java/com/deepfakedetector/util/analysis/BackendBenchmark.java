@@ -0,0 +1,77 @@
+package com.deepfakedetector.util.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Times inference backends on the same synthetic batches, so the runtime for
+ * a model can be picked on the host that will serve it. Each timed batch
+ * covers writing the inputs and the forward pass, which is what the batcher
+ * pays per batch.
+ */
+public final class BackendBenchmark {
+
+    private static final int WARM_UP_BATCHES = 3;
+
+    public record Result(String backend, int batchSize, int batches, double meanMillis, double p50Millis,
+                         double p95Millis, double blocksPerSecond, float[] scores, String error) {
+
+        public static Result failed(String backend, int batchSize, String error) {
+            return new Result(backend, batchSize, 0, 0, 0, 0, 0, null, error);
+        }
+    }
+
+    private BackendBenchmark() {
+    }
+
+    public static Result run(InferenceBackend backend, int imageSize, int batchSize, int batches) {
+        List<BlockInput> blocks = syntheticBlocks(imageSize, batchSize);
+        try (InferenceBackend.Inputs inputs = backend.newInputs()) {
+            float[] scores = null;
+            for (int i = 0; i < WARM_UP_BATCHES; i++) {
+                inputs.write(blocks);
+                scores = backend.run(inputs, batchSize);
+            }
+
+            long[] nanos = new long[Math.max(1, batches)];
+            for (int i = 0; i < nanos.length; i++) {
+                long start = System.nanoTime();
+                inputs.write(blocks);
+                backend.run(inputs, batchSize);
+                nanos[i] = System.nanoTime() - start;
+            }
+
+            Arrays.sort(nanos);
+            double mean = Arrays.stream(nanos).average().orElse(0) / 1e6;
+            return new Result(backend.getName(), batchSize, nanos.length, mean,
+                    percentile(nanos, 0.50), percentile(nanos, 0.95),
+                    mean > 0 ? batchSize * 1000.0 / mean : 0, scores, null);
+        }
+    }
+
+    // Fixed seed: every backend scores identical blocks, so their outputs can be compared too
+    private static List<BlockInput> syntheticBlocks(int imageSize, int batchSize) {
+        Random random = new Random(42);
+        List<BlockInput> blocks = new ArrayList<>(batchSize);
+        for (int b = 0; b < batchSize; b++) {
+            byte[][] frames = new byte[BlockTensorWriter.FRAMES_PER_BLOCK][];
+            for (int f = 0; f < frames.length; f++) {
+                frames[f] = new byte[imageSize * imageSize * BlockTensorWriter.CHANNELS];
+                random.nextBytes(frames[f]);
+            }
+            float[] handFeatures = new float[BlockTensorWriter.HAND_FEATURES];
+            for (int i = 0; i < handFeatures.length; i++) {
+                handFeatures[i] = random.nextFloat();
+            }
+            blocks.add(new BlockInput(frames, handFeatures));
+        }
+        return blocks;
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        int index = (int) Math.ceil(p * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(sortedNanos.length - 1, index))] / 1e6;
+    }
+}
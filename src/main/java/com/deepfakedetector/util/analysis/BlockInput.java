@@ -0,0 +1,15 @@
+package com.deepfakedetector.util.analysis;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class BlockInput {
+
+    // Consecutive face crops, each packed RGB (imageSize * imageSize * 3 bytes)
+    private final byte[][] frames;
+
+    // GLCM/LBP hand-crafted descriptor fed to the second model branch
+    private final float[] handFeatures;
+}
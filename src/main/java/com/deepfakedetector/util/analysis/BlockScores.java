@@ -0,0 +1,22 @@
+package com.deepfakedetector.util.analysis;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class BlockScores {
+
+    private final float[] predictions;
+    private final int faceFrames;
+    private final int fakeBlocks;
+    private final float maxScore;
+
+    public int getBlocks() {
+        return predictions.length;
+    }
+
+    public float getFakeRatio() {
+        return predictions.length == 0 ? 0.0f : (float) fakeBlocks / predictions.length;
+    }
+}
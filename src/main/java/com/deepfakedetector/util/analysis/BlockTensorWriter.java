@@ -0,0 +1,109 @@
+package com.deepfakedetector.util.analysis;
+
+import org.tensorflow.ndarray.Shape;
+import org.tensorflow.ndarray.buffer.FloatDataBuffer;
+import org.tensorflow.types.TFloat32;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes packed RGB face crops straight into the model's input tensors.
+ * Tensors are kept per batch size and reused, so a writer must only be used by
+ * one thread at a time; the batcher passes each one from its dispatcher to an
+ * inference worker and back.
+ */
+public class BlockTensorWriter implements InferenceBackend.Inputs {
+
+    public static final int FRAMES_PER_BLOCK = 4;
+    public static final int CHANNELS = 3;
+    public static final int HAND_FEATURES = 140;
+
+    // byte -> [0, 1] lookup, identical to dividing by 255f but without the division
+    private static final float[] NORMALIZED = new float[256];
+
+    static {
+        for (int v = 0; v < 256; v++) {
+            NORMALIZED[v] = v / 255.0f;
+        }
+    }
+
+    private final int imageSize;
+    private final int blockLength;
+    private final float[] blockScratch;
+    private final Map<Integer, TFloat32> blockTensors = new HashMap<>();
+    private final Map<Integer, TFloat32> handTensors = new HashMap<>();
+    private TFloat32 blockTensor;
+    private TFloat32 handTensor;
+
+    public BlockTensorWriter(int imageSize) {
+        this.imageSize = imageSize;
+        this.blockLength = imageSize * imageSize * FRAMES_PER_BLOCK * CHANNELS;
+        this.blockScratch = new float[blockLength];
+    }
+
+    @Override
+    public void write(List<BlockInput> blocks) {
+        blockTensor = writeBlocks(blocks);
+        handTensor = writeHandFeatures(blocks);
+    }
+
+    public TFloat32 getBlockTensor() {
+        return blockTensor;
+    }
+
+    public TFloat32 getHandTensor() {
+        return handTensor;
+    }
+
+    public TFloat32 writeBlocks(List<BlockInput> inputs) {
+        int n = inputs.size();
+        TFloat32 tensor = blockTensors.computeIfAbsent(n,
+                size -> TFloat32.tensorOf(Shape.of(size, imageSize, imageSize, FRAMES_PER_BLOCK, CHANNELS)));
+        FloatDataBuffer buffer = tensor.asRawTensor().data().asFloats();
+
+        for (int b = 0; b < n; b++) {
+            interleave(inputs.get(b).getFrames(), blockScratch);
+            buffer.offset((long) b * blockLength).write(blockScratch);
+        }
+        return tensor;
+    }
+
+    /**
+     * Interleaves the 4 frames of a block into {@code [h][w][frame][channel]}
+     * while normalising them to [0, 1], the layout every backend feeds.
+     */
+    static void interleave(byte[][] frames, float[] block) {
+        int pixels = block.length / (FRAMES_PER_BLOCK * CHANNELS);
+        for (int d = 0; d < FRAMES_PER_BLOCK; d++) {
+            byte[] rgb = frames[d];
+            int dst = d * CHANNELS;
+            for (int p = 0, src = 0; p < pixels; p++, src += CHANNELS, dst += FRAMES_PER_BLOCK * CHANNELS) {
+                block[dst] = NORMALIZED[rgb[src] & 0xFF];
+                block[dst + 1] = NORMALIZED[rgb[src + 1] & 0xFF];
+                block[dst + 2] = NORMALIZED[rgb[src + 2] & 0xFF];
+            }
+        }
+    }
+
+    public TFloat32 writeHandFeatures(List<BlockInput> inputs) {
+        int n = inputs.size();
+        TFloat32 tensor = handTensors.computeIfAbsent(n, size -> TFloat32.tensorOf(Shape.of(size, HAND_FEATURES)));
+        FloatDataBuffer buffer = tensor.asRawTensor().data().asFloats();
+        for (int b = 0; b < n; b++) {
+            buffer.offset((long) b * HAND_FEATURES).write(inputs.get(b).getHandFeatures(), 0, HAND_FEATURES);
+        }
+        return tensor;
+    }
+
+    @Override
+    public void close() {
+        blockTensors.values().forEach(TFloat32::close);
+        handTensors.values().forEach(TFloat32::close);
+        blockTensors.clear();
+        handTensors.clear();
+        blockTensor = null;
+        handTensor = null;
+    }
+}
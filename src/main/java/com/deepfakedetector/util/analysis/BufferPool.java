@@ -0,0 +1,173 @@
+package com.deepfakedetector.util.analysis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-keyed free lists of per-frame working buffers: OpenCV Mats keyed by
+ * type and shape, and byte arrays keyed by length. Once every shape a stream
+ * needs has been seen, acquiring one no longer allocates on either heap.
+ * <p>
+ * Pooled Mats hold a reference of their own, so they outlive the
+ * {@link org.bytedeco.javacpp.PointerScope} that happened to be open when they
+ * were created; they are only freed when the pool discards or closes them.
+ * Idle buffers are capped at {@code maxIdleBytes} per heap; a release that
+ * would exceed it drops the buffer instead.
+ */
+public class BufferPool implements AutoCloseable {
+
+    public static final String REQUESTS_METER_NAME = "deepfake.buffer-pool.requests";
+    public static final String IDLE_BYTES_METER_NAME = "deepfake.buffer-pool.idle-bytes";
+
+    private final long maxIdleBytes;
+    private final Map<MatShape, Queue<Mat>> mats = new ConcurrentHashMap<>();
+    private final Map<Integer, Queue<byte[]>> arrays = new ConcurrentHashMap<>();
+    private final AtomicLong idleNativeBytes = new AtomicLong();
+    private final AtomicLong idleHeapBytes = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    public BufferPool(String name, long maxIdleBytes, MeterRegistry registry) {
+        this.maxIdleBytes = Math.max(0, maxIdleBytes);
+        this.hits = requests(registry, name, "hit");
+        this.misses = requests(registry, name, "miss");
+        Gauge.builder(IDLE_BYTES_METER_NAME, idleNativeBytes, AtomicLong::get)
+                .description("Bytes held by idle pooled buffers")
+                .tag("pool", name)
+                .tag("heap", "native")
+                .register(registry);
+        Gauge.builder(IDLE_BYTES_METER_NAME, idleHeapBytes, AtomicLong::get)
+                .description("Bytes held by idle pooled buffers")
+                .tag("pool", name)
+                .tag("heap", "java")
+                .register(registry);
+    }
+
+    private static Counter requests(MeterRegistry registry, String name, String result) {
+        return Counter.builder(REQUESTS_METER_NAME)
+                .description("Buffer pool acquisitions")
+                .tag("pool", name)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * A Mat of the given type and dimensions, e.g. {@code (CV_8UC3, rows, cols)}
+     * or {@code (CV_32F, n, c, h, w)}, at most four dimensions. Its contents
+     * are undefined.
+     */
+    public Mat acquireMat(int type, int... sizes) {
+        Queue<Mat> idle = mats.get(MatShape.of(type, sizes));
+        Mat mat = idle != null ? idle.poll() : null;
+        if (mat != null) {
+            hits.increment();
+            idleNativeBytes.addAndGet(-nativeBytes(mat));
+            return mat;
+        }
+        misses.increment();
+        mat = new Mat(sizes.length, sizes, type);
+        mat.retainReference();
+        return mat;
+    }
+
+    /**
+     * Returns a Mat from {@link #acquireMat}. It is filed under its current
+     * shape, so one OpenCV has re-created at another size is reused as that.
+     */
+    public void release(Mat mat) {
+        if (mat == null || mat.isNull()) {
+            return;
+        }
+        long bytes = nativeBytes(mat);
+        if (mat.empty() || mat.dims() > MatShape.MAX_DIMS || !reserve(idleNativeBytes, bytes)) {
+            mat.close();
+            return;
+        }
+        mats.computeIfAbsent(MatShape.of(mat), shape -> new ConcurrentLinkedQueue<>()).add(mat);
+    }
+
+    public byte[] acquireBytes(int length) {
+        Queue<byte[]> idle = arrays.get(length);
+        byte[] array = idle != null ? idle.poll() : null;
+        if (array != null) {
+            hits.increment();
+            idleHeapBytes.addAndGet(-length);
+            return array;
+        }
+        misses.increment();
+        return new byte[length];
+    }
+
+    public void release(byte[] array) {
+        if (array == null) {
+            return;
+        }
+        if (reserve(idleHeapBytes, array.length)) {
+            arrays.computeIfAbsent(array.length, length -> new ConcurrentLinkedQueue<>()).add(array);
+        }
+    }
+
+    public long getIdleNativeBytes() {
+        return idleNativeBytes.get();
+    }
+
+    public long getIdleHeapBytes() {
+        return idleHeapBytes.get();
+    }
+
+    @Override
+    public void close() {
+        mats.values().forEach(idle -> {
+            Mat mat;
+            while ((mat = idle.poll()) != null) {
+                idleNativeBytes.addAndGet(-nativeBytes(mat));
+                mat.close();
+            }
+        });
+        arrays.clear();
+        idleHeapBytes.set(0);
+    }
+
+    private boolean reserve(AtomicLong idleBytes, long bytes) {
+        if (idleBytes.addAndGet(bytes) <= maxIdleBytes) {
+            return true;
+        }
+        idleBytes.addAndGet(-bytes);
+        return false;
+    }
+
+    private static long nativeBytes(Mat mat) {
+        return mat.total() * mat.elemSize();
+    }
+
+    // Unused trailing dimensions are -1; plain ints so lookups need no boxing
+    private record MatShape(int type, int d0, int d1, int d2, int d3) {
+
+        static final int MAX_DIMS = 4;
+
+        static MatShape of(int type, int... sizes) {
+            if (sizes.length > MAX_DIMS) {
+                throw new IllegalArgumentException("At most " + MAX_DIMS + " dimensions, got " + sizes.length);
+            }
+            return new MatShape(type, size(sizes, 0), size(sizes, 1), size(sizes, 2), size(sizes, 3));
+        }
+
+        static MatShape of(Mat mat) {
+            int dims = mat.dims();
+            return new MatShape(mat.type(), dims > 0 ? mat.size(0) : -1, dims > 1 ? mat.size(1) : -1,
+                    dims > 2 ? mat.size(2) : -1, dims > 3 ? mat.size(3) : -1);
+        }
+
+        private static int size(int[] sizes, int i) {
+            return i < sizes.length ? sizes[i] : -1;
+        }
+    }
+}
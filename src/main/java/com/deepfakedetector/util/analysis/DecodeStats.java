@@ -0,0 +1,32 @@
+package com.deepfakedetector.util.analysis;
+
+import lombok.Getter;
+
+/**
+ * Frame counters for one decode pass; segments of the same video each keep
+ * their own and are summed once they finish.
+ */
+@Getter
+public class DecodeStats {
+
+    private int framesDecoded;
+    private int framesSkipped;
+    private int fullDetections;
+    private int trackedFrames;
+
+    public void record(FrameSampler sampler, FaceDetector faceDetector) {
+        framesDecoded += sampler.getDecoded();
+        framesSkipped += sampler.getSkipped();
+        if (faceDetector != null) {
+            fullDetections += faceDetector.getFullDetections();
+            trackedFrames += faceDetector.getTrackedFrames();
+        }
+    }
+
+    public void add(DecodeStats other) {
+        framesDecoded += other.framesDecoded;
+        framesSkipped += other.framesSkipped;
+        fullDetections += other.fullDetections;
+        trackedFrames += other.trackedFrames;
+    }
+}
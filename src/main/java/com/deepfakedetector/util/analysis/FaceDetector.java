@@ -0,0 +1,380 @@
+package com.deepfakedetector.util.analysis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.javacpp.indexer.FloatIndexer;
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_dnn;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.MatVector;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.bytedeco.opencv.opencv_core.Size;
+import org.bytedeco.opencv.opencv_dnn.Net;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds and crops the face in each frame of one analysis. The SSD detector
+ * runs on the first frame, then every {@code detectInterval} frames, whenever
+ * the scene changes, or when the face is lost. In between, the last box is
+ * carried forward, optionally refined by a small re-detection around it.
+ * With a {@code workingSize}, detection and tracking run on a copy scaled down
+ * to it while faces are still cropped from the full-resolution frame; boxes are
+ * normalised, so they map back unchanged.
+ * Not thread-safe: create one per analysis, with a network leased from
+ * {@link FaceNetPool} for its exclusive use.
+ * <p>
+ * Pixel buffers (blobs, resized copies, crops) come from a {@link BufferPool}
+ * and go back to it once used; callers hand finished crops back to the same
+ * pool. Any other native temporary of a call lives in a {@link PointerScope}
+ * that frees it when the call returns or throws.
+ */
+@Slf4j
+public class FaceDetector {
+
+    public static final float FACE_CONFIDENCE_THRESHOLD = 0.6f;
+
+    private static final int DETECTOR_INPUT_SIZE = 300;
+    private static final int ROI_INPUT_SIZE = 150;
+    private static final int THUMBNAIL_SIZE = 16;
+
+    private final Net net;
+    private final int imageSize;
+    private final int detectInterval;
+    private final double sceneChangeThreshold;
+    private final boolean roiTracking;
+    private final int workingSize;
+    private final BufferPool buffers;
+    private final PipelineMetrics metrics;
+
+    // Reused per call instead of allocating native geometry for every frame
+    private final Scalar detectorMean = new Scalar(104.0, 177.0, 123.0, 0);
+    private final Size detectorSize = new Size(DETECTOR_INPUT_SIZE, DETECTOR_INPUT_SIZE);
+    private final Size roiSize = new Size(ROI_INPUT_SIZE, ROI_INPUT_SIZE);
+    private final Size thumbnailSize = new Size(THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+    private final Size cropSize;
+    private final MatVector inputs = new MatVector();
+    private final MatVector outputs = new MatVector();
+    private final Mat view = new Mat();
+
+    // Last face box, normalised to [0, 1] frame coordinates: x1, y1, x2, y2
+    private float[] lastBox;
+    private int framesSinceDetection;
+    private byte[] lastThumbnail;
+
+    private int fullDetections;
+    private int trackedFrames;
+
+    public FaceDetector(Net net, int imageSize, int detectInterval, double sceneChangeThreshold, boolean roiTracking,
+                        int workingSize, BufferPool buffers, PipelineMetrics metrics) {
+        this.net = net;
+        this.buffers = buffers;
+        this.metrics = metrics;
+        this.imageSize = imageSize;
+        this.detectInterval = Math.max(1, detectInterval);
+        this.sceneChangeThreshold = sceneChangeThreshold;
+        this.roiTracking = roiTracking;
+        this.workingSize = Math.max(0, workingSize);
+        this.cropSize = new Size(imageSize, imageSize);
+    }
+
+    /**
+     * Packed RGB crop of the face in {@code frame} resized to imageSize, or
+     * {@code null} when there is no face. The crop is a pooled buffer.
+     */
+    public byte[] detectAndCrop(Mat frame) {
+        return detectAndCrop(List.of(frame))[0];
+    }
+
+    /**
+     * Crops for consecutive frames. Every frame that needs a full detection
+     * goes through the SSD in a single {@code blobFromImages} forward pass.
+     * A frame scheduled as tracked after a detection that found nothing gets
+     * no crop until the next scheduled detection.
+     */
+    public byte[][] detectAndCrop(List<Mat> frames) {
+        byte[][] crops = new byte[frames.size()][];
+        List<Mat> working = frames;
+        try (PointerScope scope = new PointerScope()) {
+            long start = System.nanoTime();
+            working = workingFrames(frames);
+            float[][] boxes = locateFaces(working);
+            metrics.time(PipelineMetrics.Stage.DETECT, start);
+
+            int found = 0;
+            for (int i = 0; i < crops.length; i++) {
+                if (boxes[i] == null) {
+                    continue;
+                }
+                start = System.nanoTime();
+                crops[i] = crop(frames.get(i), boxes[i]);
+                metrics.time(PipelineMetrics.Stage.CROP, start);
+                if (crops[i] != null) {
+                    found++;
+                }
+            }
+            metrics.processed(PipelineMetrics.Stage.CROP, found);
+        } catch (Exception e) {
+            log.error("Error in face detection: {}", e.getMessage());
+            lastBox = null;
+        } finally {
+            for (int i = 0; i < working.size(); i++) {
+                if (working.get(i) != frames.get(i)) {
+                    buffers.release(working.get(i));
+                }
+            }
+        }
+        return crops;
+    }
+
+    /**
+     * The frames scaled down so the longer side is at most workingSize, or the
+     * frames themselves when they already fit. Scaled copies are pooled Mats.
+     */
+    private List<Mat> workingFrames(List<Mat> frames) {
+        if (workingSize == 0) {
+            return frames;
+        }
+        List<Mat> working = new ArrayList<>(frames.size());
+        try {
+            for (Mat frame : frames) {
+                int longer = Math.max(frame.cols(), frame.rows());
+                if (longer <= workingSize) {
+                    working.add(frame);
+                    continue;
+                }
+                double scale = (double) workingSize / longer;
+                int width = Math.max(1, (int) Math.round(frame.cols() * scale));
+                int height = Math.max(1, (int) Math.round(frame.rows() * scale));
+                Mat scaled = buffers.acquireMat(frame.type(), height, width);
+                working.add(scaled);
+                try (Size size = new Size(width, height)) {
+                    opencv_imgproc.resize(frame, scaled, size, 0, 0, opencv_imgproc.INTER_AREA);
+                }
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < working.size(); i++) {
+                if (working.get(i) != frames.get(i)) {
+                    buffers.release(working.get(i));
+                }
+            }
+            throw e;
+        }
+        return working;
+    }
+
+    public int getFullDetections() {
+        return fullDetections;
+    }
+
+    public int getTrackedFrames() {
+        return trackedFrames;
+    }
+
+    private float[][] locateFaces(List<Mat> frames) {
+        int n = frames.size();
+        byte[][] thumbnails = new byte[n][];
+        boolean[] fullDetection = new boolean[n];
+        List<Mat> toDetect = new ArrayList<>(n);
+
+        // Plan which frames need the SSD, assuming each detection finds a face
+        boolean haveBox = lastBox != null;
+        int sinceDetection = framesSinceDetection;
+        byte[] reference = lastThumbnail;
+        for (int i = 0; i < n; i++) {
+            thumbnails[i] = detectInterval > 1 ? thumbnail(frames.get(i)) : null;
+            if (!haveBox || sinceDetection >= detectInterval || sceneChanged(thumbnails[i], reference)) {
+                fullDetection[i] = true;
+                toDetect.add(frames.get(i));
+                haveBox = true;
+                sinceDetection = 1;
+                reference = thumbnails[i];
+            } else {
+                sinceDetection++;
+            }
+        }
+
+        float[][] detected = toDetect.isEmpty() ? new float[0][] : detect(toDetect, detectorSize);
+
+        float[][] boxes = new float[n][];
+        int next = 0;
+        for (int i = 0; i < n; i++) {
+            if (fullDetection[i]) {
+                fullDetections++;
+                lastBox = detected[next++];
+                framesSinceDetection = 1;
+                lastThumbnail = thumbnails[i];
+            } else {
+                trackedFrames++;
+                framesSinceDetection++;
+                if (roiTracking && lastBox != null) {
+                    float[] refined = detectAroundLastBox(frames.get(i));
+                    if (refined != null) {
+                        lastBox = refined;
+                    } else if (n == 1) {
+                        // Lost it locally: reuse the old box once, then run a full detection.
+                        // A batch is already planned, so there it waits for the next scheduled one
+                        framesSinceDetection = detectInterval;
+                    }
+                }
+            }
+            boxes[i] = lastBox;
+        }
+        return boxes;
+    }
+
+    /**
+     * First confident, non-degenerate face per image, as a normalised box, or
+     * {@code null} for images without one.
+     */
+    private float[][] detect(List<Mat> images, Size inputSize) {
+        float[][] boxes = new float[images.size()][];
+        Mat blob = buffers.acquireMat(opencv_core.CV_32F, images.size(), 3, inputSize.height(), inputSize.width());
+        try {
+            for (Mat image : images) {
+                inputs.push_back(image);
+            }
+            opencv_dnn.blobFromImages(inputs, blob, 1.0, inputSize, detectorMean, false, false, opencv_core.CV_32F);
+            net.setInput(blob);
+            net.forward(outputs);
+            readDetections(outputs.get(0), images, boxes);
+        } finally {
+            // Neither vector may keep the frames or the blob alive between calls
+            inputs.clear();
+            outputs.clear();
+            buffers.release(blob);
+        }
+        return boxes;
+    }
+
+    private static void readDetections(Mat detections, List<Mat> images, float[][] boxes) {
+        try (FloatIndexer indexer = detections.createIndexer()) {
+            int numDetections = detections.size(2);
+            for (int i = 0; i < numDetections; i++) {
+                // Column 0 is the index of the image in the batch, -1 pads unused rows
+                int image = (int) indexer.get(0, 0, i, 0);
+                if (image < 0 || image >= boxes.length || boxes[image] != null
+                        || indexer.get(0, 0, i, 2) <= FACE_CONFIDENCE_THRESHOLD) {
+                    continue;
+                }
+                int w = images.get(image).cols();
+                int h = images.get(image).rows();
+                float x1 = Math.max(0f, indexer.get(0, 0, i, 3));
+                float y1 = Math.max(0f, indexer.get(0, 0, i, 4));
+                float x2 = Math.min(1f, indexer.get(0, 0, i, 5));
+                float y2 = Math.min(1f, indexer.get(0, 0, i, 6));
+                // Same validity rule as the pixel crop: at least one whole pixel each way
+                if ((int) (x2 * w) - (int) (x1 * w) > 0 && (int) (y2 * h) - (int) (y1 * h) > 0) {
+                    boxes[image] = new float[]{x1, y1, x2, y2};
+                }
+            }
+        }
+    }
+
+    private float[] detectAroundLastBox(Mat frame) {
+        int w = frame.cols();
+        int h = frame.rows();
+        float boxW = lastBox[2] - lastBox[0];
+        float boxH = lastBox[3] - lastBox[1];
+
+        // Search window twice the size of the previous face, clamped to the frame
+        int rx1 = Math.max(0, (int) ((lastBox[0] - boxW / 2) * w));
+        int ry1 = Math.max(0, (int) ((lastBox[1] - boxH / 2) * h));
+        int rx2 = Math.min(w, (int) ((lastBox[2] + boxW / 2) * w));
+        int ry2 = Math.min(h, (int) ((lastBox[3] + boxH / 2) * h));
+        if (rx2 - rx1 <= 1 || ry2 - ry1 <= 1) {
+            return null;
+        }
+
+        float[] local;
+        try {
+            local = detect(List.of(window(frame, rx1, ry1, rx2, ry2)), roiSize)[0];
+        } finally {
+            view.release();
+        }
+        if (local == null) {
+            return null;
+        }
+        float roiW = rx2 - rx1;
+        float roiH = ry2 - ry1;
+        return new float[]{
+                (rx1 + local[0] * roiW) / w,
+                (ry1 + local[1] * roiH) / h,
+                (rx1 + local[2] * roiW) / w,
+                (ry1 + local[3] * roiH) / h
+        };
+    }
+
+    private boolean sceneChanged(byte[] thumbnail, byte[] reference) {
+        if (thumbnail == null || reference == null) {
+            return false;
+        }
+        long diff = 0;
+        for (int i = 0; i < thumbnail.length; i++) {
+            diff += Math.abs((thumbnail[i] & 0xFF) - (reference[i] & 0xFF));
+        }
+        return (double) diff / thumbnail.length > sceneChangeThreshold;
+    }
+
+    /**
+     * ROI of {@code frame} in the detector's one view header, which points at
+     * the frame's pixels until {@code view.release()}.
+     */
+    private Mat window(Mat frame, int x1, int y1, int x2, int y2) {
+        view.put(frame);
+        view.adjustROI(-y1, y2 - frame.rows(), -x1, x2 - frame.cols());
+        return view;
+    }
+
+    private byte[] thumbnail(Mat frame) {
+        Mat small = buffers.acquireMat(frame.type(), THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+        Mat gray = buffers.acquireMat(opencv_core.CV_8UC1, THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+        try {
+            opencv_imgproc.resize(frame, small, thumbnailSize, 0, 0, opencv_imgproc.INTER_AREA);
+            opencv_imgproc.cvtColor(small, gray, opencv_imgproc.COLOR_BGR2GRAY);
+            // Kept as the scene reference, so never pooled
+            byte[] pixels = new byte[THUMBNAIL_SIZE * THUMBNAIL_SIZE];
+            try (UByteIndexer indexer = gray.createIndexer()) {
+                for (int y = 0; y < THUMBNAIL_SIZE; y++) {
+                    for (int x = 0; x < THUMBNAIL_SIZE; x++) {
+                        pixels[y * THUMBNAIL_SIZE + x] = (byte) indexer.get(y, x);
+                    }
+                }
+            }
+            return pixels;
+        } finally {
+            buffers.release(small);
+            buffers.release(gray);
+        }
+    }
+
+    private byte[] crop(Mat frame, float[] box) {
+        int w = frame.cols();
+        int h = frame.rows();
+        int x1 = Math.max(0, (int) (box[0] * w));
+        int y1 = Math.max(0, (int) (box[1] * h));
+        int x2 = Math.min(w, (int) (box[2] * w));
+        int y2 = Math.min(h, (int) (box[3] * h));
+        if (x2 - x1 <= 0 || y2 - y1 <= 0) {
+            return null;
+        }
+
+        Mat resized = buffers.acquireMat(frame.type(), imageSize, imageSize);
+        Mat rgb = buffers.acquireMat(opencv_core.CV_8UC3, imageSize, imageSize);
+        try {
+            opencv_imgproc.resize(window(frame, x1, y1, x2, y2), resized, cropSize);
+            opencv_imgproc.cvtColor(resized, rgb, opencv_imgproc.COLOR_BGR2RGB);
+
+            byte[] data = buffers.acquireBytes(imageSize * imageSize * BlockTensorWriter.CHANNELS);
+            rgb.data().get(data);
+            return data;
+        } finally {
+            view.release();
+            buffers.release(resized);
+            buffers.release(rgb);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.deepfakedetector.util.analysis;
+
+import com.deepfakedetector.exception.DeepfakeSilentException;
+import com.deepfakedetector.exception.DetectionErrorCode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.opencv_dnn.Net;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of face-detector networks, each paired with its own frame
+ * converter. Neither is thread-safe, so an analysis leases one pair for its
+ * whole run and hands it back when done; analyses never share DNN state.
+ */
+@Slf4j
+public class FaceNetPool implements AutoCloseable {
+
+    public static final String LEASE_WAIT_METER_NAME = "deepfake.face-detector.lease.wait";
+    public static final String IDLE_METER_NAME = "deepfake.face-detector.idle";
+
+    private final List<Lease> all;
+    private final BlockingQueue<Lease> idle;
+    private final Timer leaseWait;
+
+    public FaceNetPool(int size, Supplier<Net> netFactory, MeterRegistry registry) {
+        this.all = new ArrayList<>(size);
+        this.idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            Lease lease = new Lease(netFactory.get(), new OpenCVFrameConverter.ToMat());
+            all.add(lease);
+            idle.add(lease);
+        }
+
+        this.leaseWait = Timer.builder(LEASE_WAIT_METER_NAME)
+                .description("Time an analysis waited for a free face-detector network")
+                .register(registry);
+        Gauge.builder(IDLE_METER_NAME, idle, BlockingQueue::size)
+                .description("Face-detector networks not leased by any analysis")
+                .register(registry);
+
+        log.info("FaceNetPool initialized with {} networks", size);
+    }
+
+    public Lease lease() {
+        long start = System.nanoTime();
+        try {
+            Lease lease = idle.take();
+            lease.leased = true;
+            long waited = System.nanoTime() - start;
+            leaseWait.record(waited, TimeUnit.NANOSECONDS);
+            if (waited > TimeUnit.MILLISECONDS.toNanos(100)) {
+                log.debug("Waited {}ms for a face-detector network", TimeUnit.NANOSECONDS.toMillis(waited));
+            }
+            return lease;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeepfakeSilentException(DetectionErrorCode.FAILED_TO_ANALYZE_VIDEO);
+        }
+    }
+
+    public int getSize() {
+        return all.size();
+    }
+
+    @Override
+    public void close() {
+        for (Lease lease : all) {
+            lease.net.close();
+            lease.converter.close();
+        }
+        idle.clear();
+    }
+
+    public final class Lease implements AutoCloseable {
+        private final Net net;
+        private final OpenCVFrameConverter.ToMat converter;
+        private volatile boolean leased;
+
+        private Lease(Net net, OpenCVFrameConverter.ToMat converter) {
+            this.net = net;
+            this.converter = converter;
+        }
+
+        public Net getNet() {
+            return net;
+        }
+
+        public OpenCVFrameConverter.ToMat getConverter() {
+            return converter;
+        }
+
+        @Override
+        public void close() {
+            if (leased) {
+                leased = false;
+                idle.offer(this);
+            }
+        }
+    }
+}
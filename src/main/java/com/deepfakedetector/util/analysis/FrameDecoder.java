@@ -0,0 +1,156 @@
+package com.deepfakedetector.util.analysis;
+
+import com.deepfakedetector.exception.DeepfakeSilentException;
+import com.deepfakedetector.exception.DetectionErrorCode;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode stage of the analysis pipeline. A worker pulls the sampled frames,
+ * converts them and queues private copies for face detection, so decoding the
+ * next frames overlaps with detecting faces in the previous ones. The queue is
+ * bounded: when detection falls behind, decoding waits.
+ */
+public class FrameDecoder implements AutoCloseable {
+
+    // Marks the end of the stream; compared by identity
+    private static final Mat END = new Mat();
+
+    private final FrameSampler sampler;
+    private final OpenCVFrameConverter.ToMat converter;
+    private final BlockingQueue<Mat> frames = new LinkedBlockingQueue<>();
+    // Bounds the frames in the queue; the end marker does not need a slot
+    private final Semaphore slots;
+    private final PipelineMetrics metrics;
+    private final BufferPool buffers;
+    private volatile boolean stopped;
+    private Future<?> worker;
+    private boolean ended;
+
+    public FrameDecoder(FrameSampler sampler, OpenCVFrameConverter.ToMat converter, int capacity,
+                        PipelineMetrics metrics, BufferPool buffers) {
+        this.sampler = sampler;
+        this.converter = converter;
+        this.slots = new Semaphore(Math.max(1, capacity));
+        this.metrics = metrics;
+        this.buffers = buffers;
+    }
+
+    public void start(ExecutorService executor) {
+        worker = executor.submit(this::decodeLoop);
+    }
+
+    /**
+     * Next decoded frame, owned by the caller (who releases it to the buffer
+     * pool), or {@code null} at the end of the stream. Rethrows whatever
+     * stopped the decode worker.
+     */
+    public Mat take() throws Exception {
+        if (ended) {
+            return null;
+        }
+        Mat mat = frames.take();
+        if (mat == END) {
+            ended = true;
+            awaitWorker();
+            return null;
+        }
+        slots.release();
+        metrics.dequeued(PipelineMetrics.Stage.DETECT, 1);
+        return mat;
+    }
+
+    @Override
+    public void close() {
+        stopped = true;
+        // The worker notices within one slot poll; its frames are released here
+        if (worker != null) {
+            try {
+                worker.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ignored) {
+                // Already surfaced through take(), or irrelevant once the caller gave up
+            }
+        }
+        drain();
+    }
+
+    private void drain() {
+        Mat mat;
+        while ((mat = frames.poll()) != null) {
+            if (mat != END) {
+                slots.release();
+                metrics.dequeued(PipelineMetrics.Stage.DETECT, 1);
+                buffers.release(mat);
+            }
+        }
+    }
+
+    private void awaitWorker() throws Exception {
+        try {
+            worker.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Void decodeLoop() throws Exception {
+        try {
+            while (!stopped) {
+                long start = System.nanoTime();
+                Frame frame = sampler.next();
+                if (frame == null) {
+                    break;
+                }
+
+                Mat mat = converter.convert(frame);
+                if (mat == null || mat.empty()) {
+                    continue;
+                }
+                // The grabber reuses its frame buffer, so the queue needs its own copy. Pooled
+                // Mats hold their own reference, so it outlives any PointerScope
+                Mat copy = buffers.acquireMat(mat.type(), mat.rows(), mat.cols());
+                mat.copyTo(copy);
+                mat.release();
+                // Includes decoding the frames the sampler skipped on the way
+                metrics.time(PipelineMetrics.Stage.DECODE, start);
+                metrics.processed(PipelineMetrics.Stage.DECODE, 1);
+
+                if (!put(copy)) {
+                    buffers.release(copy);
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeepfakeSilentException(DetectionErrorCode.FAILED_TO_ANALYZE_VIDEO);
+        } finally {
+            frames.add(END);
+        }
+        return null;
+    }
+
+    private boolean put(Mat mat) throws InterruptedException {
+        while (!stopped) {
+            if (slots.tryAcquire(50, TimeUnit.MILLISECONDS)) {
+                metrics.enqueued(PipelineMetrics.Stage.DETECT, 1);
+                frames.add(mat);
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,199 @@
+package com.deepfakedetector.util.analysis;
+
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+
+/**
+ * Pulls the frames selected by a {@link FrameSampling} policy out of a started
+ * grabber. Frames that are passed over are never converted to pixels, and in
+ * keyframe mode non-key packets are not even decoded.
+ */
+public abstract class FrameSampler {
+
+    protected final FFmpegFrameGrabber grabber;
+    protected int decoded;
+    protected int skipped;
+    private long startMicros = Long.MIN_VALUE;
+    private long endMicros = Long.MAX_VALUE;
+
+    protected FrameSampler(FFmpegFrameGrabber grabber) {
+        this.grabber = grabber;
+    }
+
+    public static FrameSampler create(FrameSampling sampling, FFmpegFrameGrabber grabber) {
+        return switch (sampling.getPolicy()) {
+            case ALL -> new EveryNth(grabber, 1);
+            case EVERY_NTH -> new EveryNth(grabber, sampling.intValue());
+            case TARGET_FPS -> new TargetFps(grabber, sampling.getValue());
+            case KEYFRAME -> new KeyframesOnly(grabber);
+            case UNIFORM_BLOCKS -> new UniformBlocks(grabber, sampling.intValue());
+        };
+    }
+
+    /**
+     * Next selected frame, or {@code null} once the video is exhausted. The
+     * returned frame is only valid until the following call.
+     */
+    public abstract Frame next() throws FFmpegFrameGrabber.Exception;
+
+    /**
+     * Limits sampling to frames in {@code [startMicros, endMicros)}, so a
+     * grabber seeked into the middle of a file reads just its own segment.
+     * A seek can land on the frame just before the start; it is dropped.
+     */
+    public void setRange(long startMicros, long endMicros) {
+        this.startMicros = startMicros;
+        this.endMicros = endMicros;
+    }
+
+    public int getDecoded() {
+        return decoded;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    protected Frame grabSelected() throws FFmpegFrameGrabber.Exception {
+        Frame frame = grabber.grabImage();
+        while (frame != null && frame.image != null && frame.timestamp < startMicros) {
+            frame = grabber.grabImage();
+        }
+        if (frame == null || frame.image == null || frame.timestamp >= endMicros) {
+            return null;
+        }
+        decoded++;
+        return frame;
+    }
+
+    protected boolean grabSkipped() throws FFmpegFrameGrabber.Exception {
+        // Decode only: no pixel-format conversion for frames nobody will look at
+        Frame frame = grabber.grabFrame(false, true, false, false, false);
+        while (frame != null && frame.timestamp < startMicros) {
+            frame = grabber.grabFrame(false, true, false, false, false);
+        }
+        if (frame == null || frame.timestamp >= endMicros) {
+            return false;
+        }
+        skipped++;
+        return true;
+    }
+
+    private static final class EveryNth extends FrameSampler {
+        private final int n;
+        private long index;
+
+        private EveryNth(FFmpegFrameGrabber grabber, int n) {
+            super(grabber);
+            this.n = Math.max(1, n);
+        }
+
+        @Override
+        public Frame next() throws FFmpegFrameGrabber.Exception {
+            while (index++ % n != 0) {
+                if (!grabSkipped()) {
+                    return null;
+                }
+            }
+            return grabSelected();
+        }
+    }
+
+    private static final class TargetFps extends FrameSampler {
+        private final long intervalMicros;
+        private final long frameMicros;
+        private long nextSampleMicros = -1;
+
+        private TargetFps(FFmpegFrameGrabber grabber, double targetFps) {
+            super(grabber);
+            double sourceFps = grabber.getVideoFrameRate() > 0 ? grabber.getVideoFrameRate() : 30.0;
+            this.intervalMicros = Math.max(1L, Math.round(1_000_000.0 / targetFps));
+            this.frameMicros = Math.max(1L, Math.round(1_000_000.0 / sourceFps));
+        }
+
+        @Override
+        public Frame next() throws FFmpegFrameGrabber.Exception {
+            if (nextSampleMicros >= 0) {
+                // Predict the upcoming frame's timestamp so skipped frames are never converted
+                while (grabber.getTimestamp() + frameMicros + frameMicros / 2 < nextSampleMicros) {
+                    if (!grabSkipped()) {
+                        return null;
+                    }
+                }
+            }
+            Frame frame = grabSelected();
+            if (frame != null) {
+                nextSampleMicros = (nextSampleMicros < 0 ? frame.timestamp : nextSampleMicros) + intervalMicros;
+            }
+            return frame;
+        }
+    }
+
+    private static final class KeyframesOnly extends FrameSampler {
+        private final int totalFrames;
+
+        private KeyframesOnly(FFmpegFrameGrabber grabber) {
+            super(grabber);
+            this.totalFrames = Math.max(0, grabber.getLengthInVideoFrames());
+        }
+
+        @Override
+        public Frame next() throws FFmpegFrameGrabber.Exception {
+            Frame frame = grabber.grabKeyFrame();
+            if (frame == null || frame.image == null) {
+                // Non-key packets are dropped before decoding, so they can only be counted at the end
+                skipped = Math.max(0, totalFrames - decoded);
+                return null;
+            }
+            decoded++;
+            return frame;
+        }
+    }
+
+    private static final class UniformBlocks extends FrameSampler {
+        private final long[] positions;
+        private int position;
+        private int framesAtPosition;
+
+        private UniformBlocks(FFmpegFrameGrabber grabber, int blocks) {
+            super(grabber);
+            long duration = grabber.getLengthInTime();
+            int totalFrames = grabber.getLengthInVideoFrames();
+            int wanted = blocks * BlockTensorWriter.FRAMES_PER_BLOCK;
+            if (duration <= 0 || totalFrames <= 0 || wanted >= totalFrames) {
+                this.positions = null;
+            } else {
+                this.positions = new long[blocks];
+                for (int i = 0; i < blocks; i++) {
+                    positions[i] = (long) (duration * ((i + 0.5) / blocks));
+                }
+            }
+        }
+
+        @Override
+        public Frame next() throws FFmpegFrameGrabber.Exception {
+            if (positions == null) {
+                // Not enough frames to spread over: fall back to reading everything
+                return grabSelected();
+            }
+            if (framesAtPosition == BlockTensorWriter.FRAMES_PER_BLOCK) {
+                position++;
+                framesAtPosition = 0;
+            }
+            if (position >= positions.length) {
+                skipped = Math.max(0, grabber.getLengthInVideoFrames() - decoded);
+                return null;
+            }
+            if (framesAtPosition == 0) {
+                grabber.setVideoTimestamp(positions[position]);
+            }
+            Frame frame = grabSelected();
+            if (frame == null) {
+                skipped = Math.max(0, grabber.getLengthInVideoFrames() - decoded);
+                return null;
+            }
+            framesAtPosition++;
+            return frame;
+        }
+    }
+}
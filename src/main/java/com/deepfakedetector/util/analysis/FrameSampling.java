@@ -0,0 +1,102 @@
+package com.deepfakedetector.util.analysis;
+
+import com.deepfakedetector.exception.DeepfakeException;
+import com.deepfakedetector.exception.DetectionErrorCode;
+import lombok.Getter;
+
+import java.util.Locale;
+
+/**
+ * Which decoded frames reach face detection, written as {@code policy[:value]}:
+ * {@code all}, {@code every-nth:5}, {@code target-fps:6}, {@code keyframe}
+ * or {@code uniform-blocks:32}.
+ */
+@Getter
+public class FrameSampling {
+
+    public enum Policy {
+        ALL("all"),
+        EVERY_NTH("every-nth"),
+        TARGET_FPS("target-fps"),
+        KEYFRAME("keyframe"),
+        UNIFORM_BLOCKS("uniform-blocks");
+
+        private final String label;
+
+        Policy(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public static final FrameSampling ALL = new FrameSampling(Policy.ALL, 0);
+
+    private final Policy policy;
+    private final double value;
+
+    private FrameSampling(Policy policy, double value) {
+        this.policy = policy;
+        this.value = value;
+    }
+
+    public static FrameSampling parse(String spec) throws DeepfakeException {
+        if (spec == null || spec.isBlank()) {
+            return ALL;
+        }
+
+        String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":", 2);
+        Policy policy = null;
+        for (Policy candidate : Policy.values()) {
+            if (candidate.label.equals(parts[0])) {
+                policy = candidate;
+            }
+        }
+        if (policy == null) {
+            throw new DeepfakeException(DetectionErrorCode.INVALID_INPUT);
+        }
+
+        boolean needsValue = policy == Policy.EVERY_NTH || policy == Policy.TARGET_FPS
+                || policy == Policy.UNIFORM_BLOCKS;
+        if (!needsValue) {
+            return policy == Policy.ALL ? ALL : new FrameSampling(policy, 0);
+        }
+
+        try {
+            double value = Double.parseDouble(parts.length > 1 ? parts[1] : "");
+            if (value <= 0 || (policy != Policy.TARGET_FPS && value != Math.rint(value))) {
+                throw new DeepfakeException(DetectionErrorCode.INVALID_INPUT);
+            }
+            return new FrameSampling(policy, value);
+        } catch (NumberFormatException e) {
+            throw new DeepfakeException(DetectionErrorCode.INVALID_INPUT);
+        }
+    }
+
+    /**
+     * Whether the policy only looks at frames near the current position, so
+     * the timeline can be split and each part sampled on its own. Keyframe and
+     * uniform-block sampling plan over the whole file and already skip most
+     * of the decoding.
+     */
+    public boolean isSegmentable() {
+        return policy == Policy.ALL || policy == Policy.EVERY_NTH || policy == Policy.TARGET_FPS;
+    }
+
+    public int intValue() {
+        return (int) value;
+    }
+
+    @Override
+    public String toString() {
+        if (policy == Policy.EVERY_NTH || policy == Policy.UNIFORM_BLOCKS) {
+            return policy.label + ":" + intValue();
+        }
+        if (policy == Policy.TARGET_FPS) {
+            return policy.label + ":" + value;
+        }
+        return policy.label;
+    }
+}
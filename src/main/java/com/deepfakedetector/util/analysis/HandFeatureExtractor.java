@@ -0,0 +1,333 @@
+package com.deepfakedetector.util.analysis;
+
+import java.util.Arrays;
+
+/**
+ * GLCM + LBP texture descriptor of a 4-frame face block, the hand-crafted
+ * input of the model's second branch. For every frame, in grayscale:
+ * <ul>
+ *   <li>a symmetric, normalised GLCM over 32 grey levels at distances 1-5 and
+ *   angles 0, 45, 90 and 135 degrees, reduced to contrast, dissimilarity,
+ *   homogeneity, ASM, energy and correlation (120 values, property-major as
+ *   skimage's graycoprops lays them out)</li>
+ *   <li>rotation-invariant uniform LBP histograms with 8 neighbours at radius
+ *   1 and 2 (10 bins each)</li>
+ * </ul>
+ * The block descriptor is the mean over its frames. Working buffers are kept
+ * per thread, so extraction allocates nothing but the returned array.
+ * <p>
+ * The vectorized LBP kernel is only compiled into builds made with the
+ * {@code vector} Maven profile, and only used when the JVM also resolved the
+ * incubating Vector API module; otherwise the scalar loop does all the work.
+ */
+public class HandFeatureExtractor {
+
+    static final int LEVELS = 32;
+    private static final int CELLS = LEVELS * LEVELS;
+    // 256 grey values -> LEVELS
+    private static final int LEVEL_SHIFT = 3;
+    private static final int[] DISTANCES = {1, 2, 3, 4, 5};
+    // Unit (dx, dy) step per angle: 0, 45, 90, 135 degrees, with rows growing downwards
+    private static final int[][] ANGLES = {{1, 0}, {1, -1}, {0, -1}, {-1, -1}};
+    private static final int GLCM_PROPERTIES = 6;
+    private static final int GLCM_FEATURES = GLCM_PROPERTIES * DISTANCES.length * ANGLES.length;
+
+    static final int LBP_POINTS = 8;
+    private static final int[] LBP_RADII = {1, 2};
+    private static final int LBP_BINS = LBP_POINTS + 2;
+
+    public static final int FEATURES = GLCM_FEATURES + LBP_RADII.length * LBP_BINS;
+
+    // Per-cell weights of the GLCM properties, indexed i * LEVELS + j
+    private static final float[] CONTRAST = new float[CELLS];
+    private static final float[] DISSIMILARITY = new float[CELLS];
+    private static final float[] HOMOGENEITY = new float[CELLS];
+    private static final float[] ROW = new float[CELLS];
+    private static final float[] ROW_SQUARED = new float[CELLS];
+    private static final float[] ROW_COLUMN = new float[CELLS];
+
+    // Interpolated neighbours of a flat patch can land a rounding error below the centre
+    static final float SAMPLE_TOLERANCE = 1e-3f;
+
+    // 8-bit LBP code -> riu2 bin: the number of set bits for uniform patterns, P + 1 otherwise
+    private static final byte[] RIU2 = new byte[1 << LBP_POINTS];
+
+    static {
+        for (int i = 0; i < LEVELS; i++) {
+            for (int j = 0; j < LEVELS; j++) {
+                int cell = i * LEVELS + j;
+                int diff = i - j;
+                CONTRAST[cell] = diff * diff;
+                DISSIMILARITY[cell] = Math.abs(diff);
+                HOMOGENEITY[cell] = 1.0f / (1 + diff * diff);
+                ROW[cell] = i;
+                ROW_SQUARED[cell] = i * i;
+                ROW_COLUMN[cell] = i * j;
+            }
+        }
+        for (int code = 0; code < RIU2.length; code++) {
+            int rotated = (code >>> 1) | ((code & 1) << (LBP_POINTS - 1));
+            int transitions = Integer.bitCount(code ^ rotated);
+            RIU2[code] = (byte) (transitions <= 2 ? Integer.bitCount(code) : LBP_POINTS + 1);
+        }
+    }
+
+    private static final String VECTOR_KERNEL_CLASS = "com.deepfakedetector.util.analysis.LbpVectorKernel";
+
+    private final int imageSize;
+    private final LbpKernel vectorKernel;
+    private final LbpSampling[] lbpSampling;
+    private final ThreadLocal<Workspace> workspaces;
+
+    public HandFeatureExtractor(int imageSize, boolean vectorized) {
+        if (FEATURES != BlockTensorWriter.HAND_FEATURES) {
+            throw new IllegalStateException("Descriptor has " + FEATURES + " features, model expects "
+                    + BlockTensorWriter.HAND_FEATURES);
+        }
+        this.imageSize = imageSize;
+        this.vectorKernel = vectorized ? loadVectorKernel() : null;
+        this.lbpSampling = new LbpSampling[LBP_RADII.length];
+        for (int r = 0; r < LBP_RADII.length; r++) {
+            lbpSampling[r] = new LbpSampling(LBP_RADII[r], imageSize);
+        }
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace(imageSize));
+    }
+
+    /**
+     * Whether the incubating Vector API module was resolved at startup
+     * ({@code --add-modules jdk.incubator.vector}).
+     */
+    public static boolean isVectorApiAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    /**
+     * The SIMD kernel, or {@code null} when the build does not include it or
+     * the JVM was started without the Vector API module.
+     */
+    private static LbpKernel loadVectorKernel() {
+        if (!isVectorApiAvailable()) {
+            return null;
+        }
+        try {
+            return (LbpKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    public boolean isVectorized() {
+        return vectorKernel != null;
+    }
+
+    public float[] extract(byte[][] frames) {
+        Workspace ws = workspaces.get();
+        float[] features = new float[FEATURES];
+        int counted = 0;
+        for (byte[] rgb : frames) {
+            if (rgb == null) {
+                continue;
+            }
+            toGray(rgb, ws);
+            glcmFeatures(ws, features);
+            for (int r = 0; r < lbpSampling.length; r++) {
+                lbpHistogram(ws, lbpSampling[r], features, GLCM_FEATURES + r * LBP_BINS);
+            }
+            counted++;
+        }
+        if (counted > 1) {
+            float scale = 1.0f / counted;
+            for (int f = 0; f < FEATURES; f++) {
+                features[f] *= scale;
+            }
+        }
+        return features;
+    }
+
+    private void toGray(byte[] rgb, Workspace ws) {
+        int pixels = imageSize * imageSize;
+        for (int p = 0, src = 0; p < pixels; p++, src += BlockTensorWriter.CHANNELS) {
+            // BT.601 luma in 8.8 fixed point, the weights OpenCV's RGB2GRAY uses
+            int gray = (77 * (rgb[src] & 0xFF) + 150 * (rgb[src + 1] & 0xFF) + 29 * (rgb[src + 2] & 0xFF)) >> 8;
+            ws.gray[p] = gray;
+            ws.levels[p] = (byte) (gray >> LEVEL_SHIFT);
+        }
+    }
+
+    private void glcmFeatures(Workspace ws, float[] features) {
+        int size = imageSize;
+        int offsetsPerProperty = DISTANCES.length * ANGLES.length;
+        for (int d = 0; d < DISTANCES.length; d++) {
+            for (int a = 0; a < ANGLES.length; a++) {
+                int dx = ANGLES[a][0] * DISTANCES[d];
+                int dy = ANGLES[a][1] * DISTANCES[d];
+
+                int[] counts = ws.counts;
+                Arrays.fill(counts, 0);
+                byte[] levels = ws.levels;
+                int xFrom = Math.max(0, -dx);
+                int xTo = Math.min(size, size - dx);
+                int yFrom = Math.max(0, -dy);
+                int yTo = Math.min(size, size - dy);
+                for (int y = yFrom; y < yTo; y++) {
+                    int row = y * size;
+                    int neighbour = (y + dy) * size + dx;
+                    for (int x = xFrom; x < xTo; x++) {
+                        counts[levels[row + x] * LEVELS + levels[neighbour + x]]++;
+                    }
+                }
+                long pairs = (long) Math.max(0, xTo - xFrom) * Math.max(0, yTo - yFrom);
+                if (pairs == 0) {
+                    continue;
+                }
+
+                // Symmetric and normalised: P(i, j) = (C(i, j) + C(j, i)) / 2N
+                float[] p = ws.glcm;
+                float norm = 1.0f / (2.0f * pairs);
+                for (int i = 0; i < LEVELS; i++) {
+                    for (int j = 0; j < LEVELS; j++) {
+                        p[i * LEVELS + j] = (counts[i * LEVELS + j] + counts[j * LEVELS + i]) * norm;
+                    }
+                }
+
+                double contrast = 0, dissimilarity = 0, homogeneity = 0, asm = 0;
+                double mean = 0, squares = 0, cross = 0;
+                for (int cell = 0; cell < p.length; cell++) {
+                    float v = p[cell];
+                    contrast += v * CONTRAST[cell];
+                    dissimilarity += v * DISSIMILARITY[cell];
+                    homogeneity += v * HOMOGENEITY[cell];
+                    asm += v * v;
+                    mean += v * ROW[cell];
+                    squares += v * ROW_SQUARED[cell];
+                    cross += v * ROW_COLUMN[cell];
+                }
+                // Symmetric matrix: row and column marginals share mean and variance
+                double variance = squares - mean * mean;
+                double correlation = variance < 1e-15 ? 1.0 : (cross - mean * mean) / variance;
+
+                int at = d * ANGLES.length + a;
+                features[at] += (float) contrast;
+                features[offsetsPerProperty + at] += (float) dissimilarity;
+                features[2 * offsetsPerProperty + at] += (float) homogeneity;
+                features[3 * offsetsPerProperty + at] += (float) asm;
+                features[4 * offsetsPerProperty + at] += (float) Math.sqrt(asm);
+                features[5 * offsetsPerProperty + at] += (float) correlation;
+            }
+        }
+    }
+
+    private void lbpHistogram(Workspace ws, LbpSampling sampling, float[] features, int offset) {
+        int size = imageSize;
+        int margin = sampling.radius;
+        if (size <= 2 * margin) {
+            return;
+        }
+        float[] gray = ws.gray;
+        int[] histogram = ws.histogram;
+        Arrays.fill(histogram, 0);
+        int[] codes = ws.codes;
+        for (int y = margin; y < size - margin; y++) {
+            int row = y * size;
+            int x = margin;
+            if (vectorKernel != null) {
+                x = vectorKernel.codes(gray, row, x, size - margin, sampling, codes);
+            }
+            scalarCodes(gray, row, x, size - margin, sampling, codes);
+            for (int c = margin; c < size - margin; c++) {
+                histogram[RIU2[codes[c]]]++;
+            }
+        }
+
+        float norm = 1.0f / ((size - 2 * margin) * (size - 2 * margin));
+        for (int b = 0; b < LBP_BINS; b++) {
+            features[offset + b] += histogram[b] * norm;
+        }
+    }
+
+    /**
+     * LBP codes of row pixels {@code [xFrom, xTo)}. The neighbour sum is kept
+     * in the same order as the vector kernel so both produce the same codes.
+     */
+    static void scalarCodes(float[] gray, int row, int xFrom, int xTo, LbpSampling s, int[] codes) {
+        Arrays.fill(codes, xFrom, xTo, 0);
+        // Neighbour-major, so each pass streams along the row with fixed offsets and weights
+        for (int k = 0; k < LBP_POINTS; k++) {
+            int o00 = s.offset00[k], o01 = s.offset01[k], o10 = s.offset10[k], o11 = s.offset11[k];
+            float w00 = s.weight00[k], w01 = s.weight01[k], w10 = s.weight10[k], w11 = s.weight11[k];
+            for (int x = xFrom; x < xTo; x++) {
+                int centre = row + x;
+                float sample = gray[centre + o00] * w00 + gray[centre + o01] * w01
+                        + gray[centre + o10] * w10 + gray[centre + o11] * w11;
+                // Branch-free sample >= reference: the difference of two finite floats is never -0
+                codes[x] |= (~Float.floatToRawIntBits(sample - (gray[centre] - SAMPLE_TOLERANCE)) >>> 31) << k;
+            }
+        }
+    }
+
+    /**
+     * Computes LBP codes for a leading part of a row and returns the first
+     * pixel it left for the scalar loop.
+     */
+    interface LbpKernel {
+        int codes(float[] gray, int row, int xFrom, int xTo, LbpSampling s, int[] codes);
+    }
+
+    /**
+     * Bilinear sampling of the {@link #LBP_POINTS} circle neighbours at one
+     * radius, as flat-index offsets from the centre pixel and corner weights.
+     */
+    static final class LbpSampling {
+        final int radius;
+        final int[] offset00 = new int[LBP_POINTS];
+        final int[] offset01 = new int[LBP_POINTS];
+        final int[] offset10 = new int[LBP_POINTS];
+        final int[] offset11 = new int[LBP_POINTS];
+        final float[] weight00 = new float[LBP_POINTS];
+        final float[] weight01 = new float[LBP_POINTS];
+        final float[] weight10 = new float[LBP_POINTS];
+        final float[] weight11 = new float[LBP_POINTS];
+
+        LbpSampling(int radius, int width) {
+            this.radius = radius;
+            for (int k = 0; k < LBP_POINTS; k++) {
+                double angle = 2 * Math.PI * k / LBP_POINTS;
+                // Rounded like skimage so axis-aligned neighbours land exactly on a pixel
+                double dy = Math.round(-radius * Math.sin(angle) * 1e5) / 1e5;
+                double dx = Math.round(radius * Math.cos(angle) * 1e5) / 1e5;
+                int fy = (int) Math.floor(dy);
+                int fx = (int) Math.floor(dx);
+                double ty = dy - fy;
+                double tx = dx - fx;
+                // A zero-weight corner points back at the base pixel so it never leaves the image
+                int nextY = ty > 0 ? 1 : 0;
+                int nextX = tx > 0 ? 1 : 0;
+
+                offset00[k] = fy * width + fx;
+                offset01[k] = fy * width + fx + nextX;
+                offset10[k] = (fy + nextY) * width + fx;
+                offset11[k] = (fy + nextY) * width + fx + nextX;
+                weight00[k] = (float) ((1 - ty) * (1 - tx));
+                weight01[k] = (float) ((1 - ty) * tx);
+                weight10[k] = (float) (ty * (1 - tx));
+                weight11[k] = (float) (ty * tx);
+            }
+        }
+    }
+
+    private static final class Workspace {
+        final float[] gray;
+        final byte[] levels;
+        final int[] counts = new int[CELLS];
+        final float[] glcm = new float[CELLS];
+        final int[] codes;
+        final int[] histogram = new int[LBP_BINS];
+
+        Workspace(int imageSize) {
+            int pixels = imageSize * imageSize;
+            this.gray = new float[pixels];
+            this.levels = new byte[pixels];
+            this.codes = new int[imageSize];
+        }
+    }
+}
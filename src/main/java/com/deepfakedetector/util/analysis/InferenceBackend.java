@@ -0,0 +1,55 @@
+package com.deepfakedetector.util.analysis;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Runtime that scores batches of blocks with one loaded model version. The
+ * {@link InferenceBatcher} keeps several {@link Inputs} per backend so the
+ * next batch can be written while the previous one runs.
+ */
+public interface InferenceBackend extends AutoCloseable {
+
+    String TENSORFLOW = "tensorflow";
+    String OPENCV_ONNX = "opencv-onnx";
+
+    /**
+     * Input buffers for one batch; used by a single thread at a time.
+     */
+    interface Inputs extends AutoCloseable {
+
+        void write(List<BlockInput> blocks);
+
+        @Override
+        void close();
+    }
+
+    String getName();
+
+    Inputs newInputs();
+
+    /**
+     * Fake probability of each of the first {@code batchSize} blocks in
+     * {@code inputs}.
+     */
+    float[] run(Inputs inputs, int batchSize);
+
+    @Override
+    void close();
+
+    /**
+     * Loads the model version in {@code directory} with the named backend:
+     * {@value #TENSORFLOW} reads the SavedModel, {@value #OPENCV_ONNX} the
+     * exported {@code onnxFile} next to it. OpenCV's threads are set process-wide
+     * by the {@link ThreadBudget}, TensorFlow's per session from it.
+     */
+    static InferenceBackend load(String name, Path directory, int imageSize, String onnxFile,
+                                 ThreadBudget threads) {
+        return switch (name) {
+            case TENSORFLOW -> TensorFlowBackend.load(directory, imageSize, threads.tensorFlowConfig());
+            case OPENCV_ONNX -> OnnxDnnBackend.load(directory.resolve(onnxFile), imageSize);
+            default -> throw new IllegalArgumentException(
+                    "Inference backend must be " + TENSORFLOW + " or " + OPENCV_ONNX + ", got: " + name);
+        };
+    }
+}
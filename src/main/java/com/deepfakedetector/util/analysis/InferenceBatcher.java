@@ -0,0 +1,307 @@
+package com.deepfakedetector.util.analysis;
+
+import com.deepfakedetector.exception.DeepfakeSilentException;
+import com.deepfakedetector.exception.DetectionErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces block chunks submitted by concurrent analyses into shared model runs.
+ * A batch is dispatched once it reaches {@code maxBatchSize} blocks or once its
+ * oldest chunk has waited {@code maxWaitMicros} since it was submitted, whichever
+ * comes first.
+ * <p>
+ * Batches go through two pipeline stages: the dispatcher writes each one into
+ * a free set of backend inputs, and {@code workers} inference threads run the
+ * model on them. With {@code workers + 1} input sets, the next batch is being
+ * written while the previous one is in the model.
+ */
+@Slf4j
+public class InferenceBatcher implements AutoCloseable {
+
+    private final InferenceBackend backend;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final PipelineMetrics metrics;
+    private final BufferPool buffers;
+    private final BlockingQueue<PendingChunk> queue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<InferenceBackend.Inputs> freeInputs;
+    private final List<InferenceBackend.Inputs> inputs = new ArrayList<>();
+    // Bounded by the number of input sets, one of which is always left to the dispatcher
+    private final BlockingQueue<PreparedBatch> prepared = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    public InferenceBatcher(InferenceBackend backend, int maxBatchSize, long maxWaitMicros,
+                            int workerCount, PipelineMetrics metrics, BufferPool buffers) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be greater than 0, got: " + maxBatchSize);
+        }
+        this.backend = backend;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, maxWaitMicros));
+        this.metrics = metrics;
+        this.buffers = buffers;
+
+        int threads = Math.max(1, workerCount);
+        this.freeInputs = new ArrayBlockingQueue<>(threads + 1);
+        for (int i = 0; i <= threads; i++) {
+            InferenceBackend.Inputs set = backend.newInputs();
+            inputs.add(set);
+            freeInputs.add(set);
+        }
+
+        this.dispatcher = new Thread(this::dispatchLoop, "inference-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::inferLoop, "inference-worker-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        log.info("InferenceBatcher started - backend: {}, maxBatchSize: {}, maxWait: {}us, workers: {}",
+                backend.getName(), maxBatchSize, maxWaitMicros, threads);
+    }
+
+    /**
+     * Takes ownership of the blocks' face crops, which go back to the buffer
+     * pool once they have been written into the backend's inputs.
+     */
+    public CompletableFuture<float[]> submit(List<BlockInput> blocks) {
+        if (blocks.isEmpty()) {
+            return CompletableFuture.completedFuture(new float[0]);
+        }
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("InferenceBatcher is closed"));
+        }
+
+        // Oversized requests are split so a single long video cannot monopolise a batch
+        List<CompletableFuture<float[]>> parts = new ArrayList<>();
+        for (int from = 0; from < blocks.size(); from += maxBatchSize) {
+            PendingChunk chunk = new PendingChunk(blocks.subList(from, Math.min(blocks.size(), from + maxBatchSize)));
+            metrics.enqueued(PipelineMetrics.Stage.TENSORIZE, chunk.blocks.size());
+            queue.add(chunk);
+            parts.add(chunk.result);
+        }
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    float[] preds = new float[blocks.size()];
+                    int offset = 0;
+                    for (CompletableFuture<float[]> part : parts) {
+                        float[] partPreds = part.join();
+                        System.arraycopy(partPreds, 0, preds, offset, partPreds.length);
+                        offset += partPreds.length;
+                    }
+                    return preds;
+                });
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    private void dispatchLoop() {
+        PendingChunk carried = null;
+        while (running) {
+            try {
+                PendingChunk first = carried != null ? carried : poll(100, TimeUnit.MILLISECONDS);
+                carried = null;
+                if (first == null) {
+                    continue;
+                }
+
+                List<PendingChunk> batch = new ArrayList<>();
+                batch.add(first);
+                int size = first.blocks.size();
+                // The queue is FIFO, so the first chunk is the oldest one and its enqueue time bounds the wait
+                long deadline = first.enqueuedAt + maxWaitNanos;
+
+                while (size < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingChunk next = poll(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    if (size + next.blocks.size() > maxBatchSize) {
+                        carried = next;
+                        break;
+                    }
+                    batch.add(next);
+                    size += next.blocks.size();
+                }
+
+                tensorize(batch, size);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable t) {
+                log.error("Inference dispatcher error: {}", t.getMessage(), t);
+            }
+        }
+
+        if (carried != null) {
+            releaseCrops(carried.blocks);
+            carried.result.completeExceptionally(new IllegalStateException("InferenceBatcher is closed"));
+        }
+        PendingChunk pending;
+        while ((pending = queue.poll()) != null) {
+            metrics.dequeued(PipelineMetrics.Stage.TENSORIZE, pending.blocks.size());
+            releaseCrops(pending.blocks);
+            pending.result.completeExceptionally(new IllegalStateException("InferenceBatcher is closed"));
+        }
+    }
+
+    private PendingChunk poll(long timeout, TimeUnit unit) throws InterruptedException {
+        PendingChunk chunk = timeout > 0 ? queue.poll(timeout, unit) : queue.poll();
+        if (chunk != null) {
+            metrics.dequeued(PipelineMetrics.Stage.TENSORIZE, chunk.blocks.size());
+        }
+        return chunk;
+    }
+
+    private void tensorize(List<PendingChunk> batch, int size) throws InterruptedException {
+        List<BlockInput> blocks = new ArrayList<>(size);
+        for (PendingChunk chunk : batch) {
+            blocks.addAll(chunk.blocks);
+        }
+
+        // Waits here while every input set is queued for or inside the model
+        InferenceBackend.Inputs set;
+        try {
+            set = freeInputs.take();
+        } catch (InterruptedException e) {
+            // The chunks are already off the queue, so the closing sweep would never see them
+            releaseCrops(blocks);
+            batch.forEach(chunk -> chunk.result.completeExceptionally(
+                    new IllegalStateException("InferenceBatcher is closed")));
+            throw e;
+        }
+        PreparedBatch ready;
+        try {
+            long start = System.nanoTime();
+            set.write(blocks);
+            metrics.time(PipelineMetrics.Stage.TENSORIZE, start);
+            ready = new PreparedBatch(batch, size, set);
+        } catch (Throwable t) {
+            freeInputs.add(set);
+            releaseCrops(blocks);
+            batch.forEach(chunk -> chunk.result.completeExceptionally(t));
+            return;
+        }
+        releaseCrops(blocks);
+        metrics.processed(PipelineMetrics.Stage.TENSORIZE, size);
+        metrics.enqueued(PipelineMetrics.Stage.INFER, size);
+        prepared.add(ready);
+    }
+
+    private void releaseCrops(List<BlockInput> blocks) {
+        for (BlockInput block : blocks) {
+            for (byte[] crop : block.getFrames()) {
+                buffers.release(crop);
+            }
+        }
+    }
+
+    private void inferLoop() {
+        while (running) {
+            PreparedBatch batch;
+            try {
+                batch = prepared.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (batch == null) {
+                continue;
+            }
+            metrics.dequeued(PipelineMetrics.Stage.INFER, batch.size);
+            runBatch(batch);
+        }
+    }
+
+    private void runBatch(PreparedBatch batch) {
+        float[] preds;
+        long start = System.nanoTime();
+        try {
+            preds = backend.run(batch.inputs, batch.size);
+            metrics.time(PipelineMetrics.Stage.INFER, start);
+        } catch (Throwable t) {
+            log.error("Model prediction failed: {}", t.getMessage(), t);
+            DeepfakeSilentException failure = new DeepfakeSilentException(DetectionErrorCode.FAILED_TO_ANALYZE_VIDEO);
+            batch.chunks.forEach(chunk -> chunk.result.completeExceptionally(failure));
+            return;
+        } finally {
+            freeInputs.add(batch.inputs);
+        }
+
+        metrics.processed(PipelineMetrics.Stage.INFER, batch.size);
+        log.debug("Ran inference batch of {} blocks from {} requests", batch.size, batch.chunks.size());
+
+        int offset = 0;
+        for (PendingChunk chunk : batch.chunks) {
+            float[] chunkPreds = new float[chunk.blocks.size()];
+            System.arraycopy(preds, offset, chunkPreds, 0, chunkPreds.length);
+            offset += chunkPreds.length;
+            chunk.result.complete(chunkPreds);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        workers.forEach(Thread::interrupt);
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+            for (Thread worker : workers) {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        PreparedBatch batch;
+        while ((batch = prepared.poll()) != null) {
+            metrics.dequeued(PipelineMetrics.Stage.INFER, batch.size);
+            batch.chunks.forEach(chunk -> chunk.result.completeExceptionally(
+                    new IllegalStateException("InferenceBatcher is closed")));
+        }
+        inputs.forEach(InferenceBackend.Inputs::close);
+    }
+
+    private static final class PendingChunk {
+        private final List<BlockInput> blocks;
+        private final CompletableFuture<float[]> result = new CompletableFuture<>();
+        private final long enqueuedAt = System.nanoTime();
+
+        private PendingChunk(List<BlockInput> blocks) {
+            this.blocks = blocks;
+        }
+    }
+
+    private static final class PreparedBatch {
+        private final List<PendingChunk> chunks;
+        private final int size;
+        private final InferenceBackend.Inputs inputs;
+
+        private PreparedBatch(List<PendingChunk> chunks, int size, InferenceBackend.Inputs inputs) {
+            this.chunks = chunks;
+            this.size = size;
+            this.inputs = inputs;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.deepfakedetector.util.analysis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ResourceUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent home for the model files bundled in the JAR. Each classpath
+ * directory is extracted once into {@code <name>-<checksum>} under the cache
+ * directory and reused by every later start with the same files; the
+ * checksum covers each file's path, size and CRC-32, which a JAR records per
+ * entry, so checking it reads no model bytes. Extraction goes to a temporary
+ * directory that is renamed into place, so a crash never leaves a partial
+ * version behind and concurrent starts agree on one copy.
+ * <p>
+ * When the resources are plain files (running from an IDE or {@code mvn
+ * spring-boot:run}) they are loaded in place and nothing is copied, as is a
+ * {@code file:} directory outside the classpath (e.g. a mounted volume).
+ */
+@Slf4j
+@Component
+public class ModelCache {
+
+    private static final String TEMP_PREFIX = ".extract-";
+
+    private final Path root;
+    private final Duration staleAfter;
+
+    public ModelCache(
+            @Value("${model.cache.directory:${java.io.tmpdir}/deepfake-model-cache}") String directory,
+            @Value("${model.cache.stale-after-hours:24}") long staleAfterHours
+    ) {
+        this.root = Paths.get(directory).toAbsolutePath();
+        this.staleAfter = Duration.ofHours(Math.max(0, staleAfterHours));
+    }
+
+    /**
+     * Local directory holding every file under the classpath directory
+     * {@code resourceDir}, laid out as in the JAR, or the directory itself
+     * when it is given as a {@code file:} path.
+     */
+    public Path resolve(String name, String resourceDir) throws IOException {
+        if (resourceDir.startsWith(ResourceUtils.FILE_URL_PREFIX)) {
+            Path external = Paths.get(resourceDir.substring(ResourceUtils.FILE_URL_PREFIX.length())).toAbsolutePath();
+            if (!Files.isDirectory(external)) {
+                throw new IOException("Model directory " + external + " not found.");
+            }
+            log.info("Loading {} in place from {}", name, external);
+            return external;
+        }
+        ClassPathResource base = new ClassPathResource(resourceDir);
+        if (!base.exists()) {
+            throw new IOException("Resource folder " + resourceDir + " not found in classpath.");
+        }
+        if ("file".equals(base.getURL().getProtocol())) {
+            Path inPlace = base.getFile().toPath();
+            log.info("Loading {} in place from {}", name, inPlace);
+            return inPlace;
+        }
+
+        Map<String, Resource> files = listFiles(base);
+        if (files.isEmpty()) {
+            throw new IOException("Resource folder " + resourceDir + " is empty.");
+        }
+        Path target = root.resolve(name + "-" + checksum(files));
+        Files.createDirectories(root);
+
+        if (isComplete(target, files)) {
+            log.info("Reusing cached {} at {}", name, target);
+        } else {
+            extract(files, target);
+            log.info("Extracted {} to {}", name, target);
+        }
+        // Marks the version as in use, so other instances' cleanup leaves it alone
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+        removeStale(name, target);
+        return target;
+    }
+
+    private static Map<String, Resource> listFiles(ClassPathResource base) throws IOException {
+        String prefix = base.getURL().toString();
+        if (!prefix.endsWith("/")) {
+            prefix += "/";
+        }
+        Map<String, Resource> files = new TreeMap<>();
+        Resource[] found = new PathMatchingResourcePatternResolver()
+                .getResources("classpath:" + base.getPath() + "/**");
+        for (Resource resource : found) {
+            String url = resource.getURL().toString();
+            if (url.startsWith(prefix) && !url.endsWith("/") && url.length() > prefix.length()) {
+                files.put(url.substring(prefix.length()), resource);
+            }
+        }
+        return files;
+    }
+
+    private static String checksum(Map<String, Resource> files) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (Map.Entry<String, Resource> file : files.entrySet()) {
+            long[] sizeAndCrc = sizeAndCrc(file.getValue());
+            digest.update((file.getKey() + ":" + sizeAndCrc[0] + ":" + sizeAndCrc[1] + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 8);
+    }
+
+    private static long[] sizeAndCrc(Resource resource) throws IOException {
+        URLConnection connection = resource.getURL().openConnection();
+        if (connection instanceof JarURLConnection jar) {
+            JarEntry entry = jar.getJarEntry();
+            if (entry != null && entry.getCrc() != -1 && entry.getSize() != -1) {
+                return new long[]{entry.getSize(), entry.getCrc()};
+            }
+        }
+        // No recorded CRC: read the content once
+        CRC32 crc = new CRC32();
+        long size = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = resource.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+                size += read;
+            }
+        }
+        return new long[]{size, crc.getValue()};
+    }
+
+    private static boolean isComplete(Path target, Map<String, Resource> files) throws IOException {
+        if (!Files.isDirectory(target)) {
+            return false;
+        }
+        for (Map.Entry<String, Resource> file : files.entrySet()) {
+            Path path = target.resolve(file.getKey());
+            if (!Files.isRegularFile(path) || Files.size(path) != file.getValue().contentLength()) {
+                log.warn("Cached model file {} is missing or truncated, extracting again", path);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void extract(Map<String, Resource> files, Path target) throws IOException {
+        Path temp = Files.createTempDirectory(root, TEMP_PREFIX);
+        try {
+            for (Map.Entry<String, Resource> file : files.entrySet()) {
+                Path path = temp.resolve(file.getKey());
+                Files.createDirectories(path.getParent());
+                try (InputStream in = file.getValue().getInputStream()) {
+                    Files.copy(in, path);
+                }
+            }
+            // A leftover from a crash or a bad copy is replaced, a complete one is kept
+            if (Files.exists(target) && !isComplete(target, files)) {
+                deleteTree(target);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target);
+            }
+        } catch (FileAlreadyExistsException e) {
+            log.info("Another instance extracted {} first, using its copy", target.getFileName());
+        } catch (IOException e) {
+            // Some file systems report a non-empty target as a generic failure
+            if (!isComplete(target, files)) {
+                throw e;
+            }
+        } finally {
+            if (Files.exists(temp)) {
+                deleteTree(temp);
+            }
+        }
+    }
+
+    /**
+     * Removes other versions of {@code name} and abandoned extractions that
+     * have not been used for {@code staleAfter}.
+     */
+    private void removeStale(String name, Path current) {
+        Instant cutoff = Instant.now().minus(staleAfter);
+        List<Path> stale = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(root)) {
+            entries.filter(path -> !path.equals(current))
+                    .filter(path -> {
+                        String fileName = path.getFileName().toString();
+                        return fileName.startsWith(name + "-") || fileName.startsWith(TEMP_PREFIX);
+                    })
+                    .forEach(stale::add);
+        } catch (IOException e) {
+            log.warn("Could not list model cache {}: {}", root, e.getMessage());
+            return;
+        }
+        for (Path path : stale) {
+            try {
+                if (Files.getLastModifiedTime(path).toInstant().isBefore(cutoff)) {
+                    deleteTree(path);
+                    log.info("Removed stale model cache entry {}", path);
+                }
+            } catch (IOException e) {
+                log.warn("Could not remove stale model cache entry {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
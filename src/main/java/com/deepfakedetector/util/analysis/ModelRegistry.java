@@ -0,0 +1,196 @@
+package com.deepfakedetector.util.analysis;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serving versions of the video model. An analysis {@link #acquire() leases}
+ * the current version for its whole run, so every block of one video is
+ * scored by the same model. {@link #load} brings a new version up next to
+ * the old one, warms it with a dummy batch and then switches new leases to
+ * it; the old version keeps serving the analyses that hold it and is closed
+ * when the last of them releases it.
+ * <p>
+ * Each version has its own {@link InferenceBackend} and
+ * {@link InferenceBatcher}, since a batch can only go through one model.
+ */
+@Slf4j
+public class ModelRegistry implements AutoCloseable {
+
+    private static final long WARM_UP_TIMEOUT_SECONDS = 60;
+
+    @FunctionalInterface
+    public interface BackendLoader {
+        InferenceBackend load(Path directory);
+    }
+
+    @FunctionalInterface
+    public interface BatcherFactory {
+        InferenceBatcher create(InferenceBackend backend);
+    }
+
+    private final BackendLoader backendLoader;
+    private final BatcherFactory batcherFactory;
+    private final int imageSize;
+    private volatile ServingModel current;
+
+    public ModelRegistry(BackendLoader backendLoader, BatcherFactory batcherFactory, int imageSize) {
+        this.backendLoader = backendLoader;
+        this.batcherFactory = batcherFactory;
+        this.imageSize = imageSize;
+    }
+
+    /**
+     * Loads and warms the model version in {@code directory}, then makes it
+     * the current one. If anything fails the current version stays in place.
+     */
+    public synchronized void load(String version, Path directory) {
+        long start = System.nanoTime();
+        InferenceBackend backend = backendLoader.load(directory);
+        ServingModel next;
+        try {
+            next = new ServingModel(version, directory, backend, batcherFactory.create(backend));
+        } catch (RuntimeException e) {
+            backend.close();
+            throw e;
+        }
+        try {
+            warmUp(next);
+        } catch (RuntimeException e) {
+            next.release();
+            throw e;
+        }
+
+        ServingModel previous = current;
+        current = next;
+        log.info("Model {} loaded from {} on {} and serving after {}ms", version, directory, backend.getName(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (previous != null) {
+            log.info("Draining model {}; it closes once its running analyses finish", previous.version);
+            previous.release();
+        }
+    }
+
+    /**
+     * The current version, held until the lease is closed.
+     */
+    public Lease acquire() {
+        while (true) {
+            ServingModel model = current;
+            if (model == null) {
+                throw new IllegalStateException("No model loaded");
+            }
+            // Fails only if the version was swapped out and fully drained since the read
+            if (model.retain()) {
+                return new Lease(model);
+            }
+        }
+    }
+
+    public String getCurrentVersion() {
+        ServingModel model = current;
+        return model != null ? model.version : null;
+    }
+
+    public Path getCurrentDirectory() {
+        ServingModel model = current;
+        return model != null ? model.directory : null;
+    }
+
+    /**
+     * Stops serving. Versions still leased close when their last lease does.
+     */
+    @Override
+    public synchronized void close() {
+        ServingModel model = current;
+        current = null;
+        if (model != null) {
+            model.release();
+        }
+    }
+
+    private void warmUp(ServingModel model) {
+        byte[][] frames = new byte[BlockTensorWriter.FRAMES_PER_BLOCK][];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = new byte[imageSize * imageSize * BlockTensorWriter.CHANNELS];
+        }
+        BlockInput block = new BlockInput(frames, new float[BlockTensorWriter.HAND_FEATURES]);
+        try {
+            float[] preds = model.batcher.submit(List.of(block)).get(WARM_UP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (preds.length != 1 || !Float.isFinite(preds[0])) {
+                throw new IllegalStateException("Model " + model.version + " returned no usable prediction");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while warming up model " + model.version, e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Warm-up of model " + model.version + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    public static final class Lease implements AutoCloseable {
+
+        private final ServingModel model;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(ServingModel model) {
+            this.model = model;
+        }
+
+        public String getVersion() {
+            return model.version;
+        }
+
+        public InferenceBatcher getBatcher() {
+            return model.batcher;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                model.release();
+            }
+        }
+    }
+
+    private static final class ServingModel {
+
+        private final String version;
+        private final Path directory;
+        private final InferenceBackend backend;
+        private final InferenceBatcher batcher;
+        // One reference for being current, one per lease
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private ServingModel(String version, Path directory, InferenceBackend backend, InferenceBatcher batcher) {
+            this.version = version;
+            this.directory = directory;
+            this.backend = backend;
+            this.batcher = batcher;
+        }
+
+        private boolean retain() {
+            int count;
+            do {
+                count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        private void release() {
+            if (references.decrementAndGet() == 0) {
+                batcher.close();
+                backend.close();
+                log.info("Model {} closed", version);
+            }
+        }
+    }
+}
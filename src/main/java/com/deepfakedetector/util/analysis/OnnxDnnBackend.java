@@ -0,0 +1,134 @@
+package com.deepfakedetector.util.analysis;
+
+import org.bytedeco.javacpp.FloatPointer;
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_dnn;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.bytedeco.opencv.opencv_dnn.Net;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs an ONNX export of the model (e.g. {@code tf2onnx --saved-model}) on
+ * OpenCV's own CPU DNN engine. Inputs keep the SavedModel's layout and
+ * signature names. A {@link Net} is not thread-safe, so batches run one at a
+ * time; OpenCV already spreads each forward pass over its thread pool.
+ */
+public class OnnxDnnBackend implements InferenceBackend {
+
+    static final String BLOCK_INPUT = "video_block";
+    static final String HAND_FEATURES_INPUT = "glcm_lbp";
+
+    private final Net net;
+    private final int imageSize;
+    // Inputs are already normalised
+    private final Scalar noMean = new Scalar();
+
+    private OnnxDnnBackend(Net net, int imageSize) {
+        this.net = net;
+        this.imageSize = imageSize;
+    }
+
+    public static OnnxDnnBackend load(Path onnxFile, int imageSize) {
+        if (!Files.isRegularFile(onnxFile)) {
+            throw new IllegalArgumentException("ONNX model not found: " + onnxFile);
+        }
+        Net net = opencv_dnn.readNetFromONNX(onnxFile.toString());
+        if (net.empty()) {
+            throw new IllegalStateException("OpenCV could not read ONNX model " + onnxFile);
+        }
+        net.setPreferableBackend(opencv_dnn.DNN_BACKEND_OPENCV);
+        net.setPreferableTarget(opencv_dnn.DNN_TARGET_CPU);
+        return new OnnxDnnBackend(net, imageSize);
+    }
+
+    @Override
+    public String getName() {
+        return OPENCV_ONNX;
+    }
+
+    @Override
+    public Inputs newInputs() {
+        return new MatInputs(imageSize);
+    }
+
+    @Override
+    public synchronized float[] run(Inputs inputs, int batchSize) {
+        MatInputs mats = (MatInputs) inputs;
+        try (PointerScope scope = new PointerScope()) {
+            net.setInput(mats.blocks, BLOCK_INPUT, 1.0, noMean);
+            net.setInput(mats.handFeatures, HAND_FEATURES_INPUT, 1.0, noMean);
+            Mat out = net.forward();
+
+            // One score per block, [n, 1]; the output of a forward pass is continuous
+            FloatPointer scores = new FloatPointer(out.data());
+            long stride = out.total() / batchSize;
+            float[] preds = new float[batchSize];
+            for (int i = 0; i < batchSize; i++) {
+                preds[i] = scores.get(i * stride);
+            }
+            return preds;
+        }
+    }
+
+    @Override
+    public void close() {
+        net.close();
+        noMean.close();
+    }
+
+    /**
+     * Input Mats per batch size, reused like the TensorFlow tensors.
+     */
+    private static final class MatInputs implements Inputs {
+
+        private final int imageSize;
+        private final float[] blockScratch;
+        private final Map<Integer, Mat> blockMats = new HashMap<>();
+        private final Map<Integer, Mat> handMats = new HashMap<>();
+        private Mat blocks;
+        private Mat handFeatures;
+
+        private MatInputs(int imageSize) {
+            this.imageSize = imageSize;
+            this.blockScratch = new float[imageSize * imageSize
+                    * BlockTensorWriter.FRAMES_PER_BLOCK * BlockTensorWriter.CHANNELS];
+        }
+
+        @Override
+        public void write(List<BlockInput> inputs) {
+            int n = inputs.size();
+            blocks = blockMats.computeIfAbsent(n, size -> new Mat(5, new int[]{size, imageSize, imageSize,
+                    BlockTensorWriter.FRAMES_PER_BLOCK, BlockTensorWriter.CHANNELS}, opencv_core.CV_32F));
+            handFeatures = handMats.computeIfAbsent(n, size -> new Mat(2, new int[]{size,
+                    BlockTensorWriter.HAND_FEATURES}, opencv_core.CV_32F));
+
+            // Views of the Mats' memory, they own nothing
+            FloatPointer blockData = new FloatPointer(blocks.data());
+            FloatPointer handData = new FloatPointer(handFeatures.data());
+            for (int b = 0; b < n; b++) {
+                BlockInput input = inputs.get(b);
+                BlockTensorWriter.interleave(input.getFrames(), blockScratch);
+                blockData.position((long) b * blockScratch.length).put(blockScratch);
+                handData.position((long) b * BlockTensorWriter.HAND_FEATURES)
+                        .put(input.getHandFeatures(), 0, BlockTensorWriter.HAND_FEATURES);
+            }
+        }
+
+        @Override
+        public void close() {
+            blockMats.values().forEach(Mat::close);
+            handMats.values().forEach(Mat::close);
+            blockMats.clear();
+            handMats.clear();
+            blocks = null;
+            handFeatures = null;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.deepfakedetector.util.analysis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-stage meters for the analysis path, from the upload to the stored
+ * result: the time each call of a stage took (with percentile histograms),
+ * items each stage has finished (its throughput, as a rate) and, for the
+ * pipelined stages, items waiting in the hand-off queue in front of it,
+ * summed over all running analyses.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String ITEMS_METER_NAME = "deepfake.pipeline.items";
+    public static final String QUEUE_METER_NAME = "deepfake.pipeline.queue";
+    public static final String DURATION_METER_NAME = "deepfake.pipeline.duration";
+    public static final String ANALYSIS_METER_NAME = "deepfake.analysis.duration";
+    public static final String BLOCKS_METER_NAME = "deepfake.analysis.blocks";
+    public static final String STAGE_DIMENSION = "stage";
+
+    public enum Stage {
+        // Uploads written to disk (and hashed)
+        COPY(false),
+        // Containers opened and their headers read
+        PROBE(false),
+        // Frames decoded and converted
+        DECODE(true),
+        // Frames run through face detection (timed per forward pass or batch)
+        DETECT(true),
+        // Face crops cut and resized, one per frame with a face
+        CROP(false),
+        // Blocks written into input tensors (timed per batch)
+        TENSORIZE(true),
+        // Blocks scored by the model (timed per batch, i.e. per session run)
+        INFER(true),
+        // Results stored in the database
+        PERSIST(false);
+
+        private final boolean queued;
+
+        Stage(boolean queued) {
+            this.queued = queued;
+        }
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Map<Stage, Counter> processed = new EnumMap<>(Stage.class);
+    private final Map<Stage, AtomicInteger> queued = new EnumMap<>(Stage.class);
+    private final Map<Stage, Timer> durations = new EnumMap<>(Stage.class);
+    private final Timer analysed;
+    private final Timer cached;
+    private final DistributionSummary blocks;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            processed.put(stage, Counter.builder(ITEMS_METER_NAME)
+                    .description("Items finished by an analysis pipeline stage")
+                    .tag(STAGE_DIMENSION, stage.tag())
+                    .register(registry));
+
+            // Per-frame stages finish well under a millisecond, copies of large uploads take seconds
+            durations.put(stage, Timer.builder(DURATION_METER_NAME)
+                    .description("Time spent in one call of an analysis pipeline stage")
+                    .tag(STAGE_DIMENSION, stage.tag())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(50_000))
+                    .maximumExpectedValue(Duration.ofMinutes(2))
+                    .register(registry));
+
+            if (stage.queued) {
+                AtomicInteger depth = new AtomicInteger();
+                queued.put(stage, depth);
+                Gauge.builder(QUEUE_METER_NAME, depth, AtomicInteger::get)
+                        .description("Items waiting for an analysis pipeline stage")
+                        .tag(STAGE_DIMENSION, stage.tag())
+                        .register(registry);
+            }
+        }
+
+        this.analysed = analysisTimer(registry, false);
+        this.cached = analysisTimer(registry, true);
+        this.blocks = DistributionSummary.builder(BLOCKS_METER_NAME)
+                .description("Blocks scored per analysed video")
+                .baseUnit("blocks")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    private static Timer analysisTimer(MeterRegistry registry, boolean cached) {
+        return Timer.builder(ANALYSIS_METER_NAME)
+                .description("Time from the analysis request to its result; cached results count as cache hits")
+                .tag("cached", Boolean.toString(cached))
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMinutes(15))
+                .register(registry);
+    }
+
+    public void processed(Stage stage, int items) {
+        processed.get(stage).increment(items);
+    }
+
+    public void enqueued(Stage stage, int items) {
+        queued.get(stage).addAndGet(items);
+    }
+
+    public void dequeued(Stage stage, int items) {
+        queued.get(stage).addAndGet(-items);
+    }
+
+    public int getQueued(Stage stage) {
+        return queued.get(stage).get();
+    }
+
+    /**
+     * Records one call of {@code stage} that started at {@code startNanos}
+     * ({@link System#nanoTime()}).
+     */
+    public void time(Stage stage, long startNanos) {
+        durations.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void analysed(int blockCount, long nanos) {
+        analysed.record(nanos, TimeUnit.NANOSECONDS);
+        blocks.record(blockCount);
+    }
+
+    public void cacheHit(long nanos) {
+        cached.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,67 @@
+package com.deepfakedetector.util.analysis;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Compact binary form of a cached analysis record for the Redis tier: a
+ * version byte, a flags byte, the counters, then the block predictions as
+ * raw floats. Entries from an unknown version (including the version 1
+ * finished responses) decode to {@code null} and are treated as misses.
+ */
+final class ResultCodec {
+
+    private static final byte VERSION = 2;
+
+    private static final int EARLY_EXIT = 1;
+
+    private ResultCodec() {
+    }
+
+    static byte[] encode(AnalysisRecord record) {
+        float[] predictions = record.getPredictions();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(18 + predictions.length * Float.BYTES);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(record.isEarlyExit() ? EARLY_EXIT : 0);
+            out.writeInt(record.getFaceFrames());
+            out.writeInt(record.getFramesDecoded());
+            out.writeInt(record.getFramesSkipped());
+            out.writeInt(predictions.length);
+            for (float pred : predictions) {
+                out.writeFloat(pred);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static AnalysisRecord decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+            int flags = in.readUnsignedByte();
+            int faceFrames = in.readInt();
+            int framesDecoded = in.readInt();
+            int framesSkipped = in.readInt();
+            int blocks = in.readInt();
+            if (blocks < 0 || blocks > in.available() / Float.BYTES) {
+                return null;
+            }
+            float[] predictions = new float[blocks];
+            for (int i = 0; i < blocks; i++) {
+                predictions[i] = in.readFloat();
+            }
+            return new AnalysisRecord(predictions, faceFrames, framesDecoded, framesSkipped,
+                    (flags & EARLY_EXIT) != 0);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
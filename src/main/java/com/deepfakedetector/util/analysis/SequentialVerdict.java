@@ -0,0 +1,70 @@
+package com.deepfakedetector.util.analysis;
+
+import lombok.Getter;
+
+/**
+ * Decides whether the blocks scored so far already settle the video verdict.
+ * Runs Wald's sequential probability ratio test on the fake-block rate:
+ * {@code threshold - margin} (real) against {@code threshold + margin} (fake).
+ * Unlike re-checking a fixed-level interval after every block, the SPRT bounds
+ * keep the chance of stopping on the wrong side near {@code 1 - confidence}
+ * however often it is evaluated, for any rate outside the margin.
+ */
+@Getter
+public class SequentialVerdict {
+
+    public enum Decision {
+        UNDECIDED, FAKE, REAL
+    }
+
+    // Keeps both hypotheses strictly inside (0, 1) so their log ratios stay finite
+    private static final double MIN_RATE = 1e-3;
+
+    private final float threshold;
+    private final double confidence;
+    private final double margin;
+    private final int minBlocks;
+    private final double fakeStep;
+    private final double realStep;
+    private final double upperBound;
+    private final double lowerBound;
+
+    public SequentialVerdict(float threshold, double confidence, double margin, int minBlocks) {
+        if (confidence <= 0.5 || confidence >= 1.0) {
+            throw new IllegalArgumentException("confidence must be in (0.5, 1), got: " + confidence);
+        }
+        if (margin <= 0 || margin >= 0.5) {
+            throw new IllegalArgumentException("margin must be in (0, 0.5), got: " + margin);
+        }
+        this.threshold = threshold;
+        this.confidence = confidence;
+        this.margin = margin;
+        this.minBlocks = Math.max(1, minBlocks);
+
+        double p0 = Math.max(MIN_RATE, threshold - margin);
+        double p1 = Math.min(1.0 - MIN_RATE, threshold + margin);
+        // Log-likelihood ratio contributed by one fake and by one real block
+        this.fakeStep = Math.log(p1 / p0);
+        this.realStep = Math.log((1.0 - p1) / (1.0 - p0));
+
+        // Same error rate both ways: alpha = beta = 1 - confidence
+        double error = 1.0 - confidence;
+        this.upperBound = Math.log((1.0 - error) / error);
+        this.lowerBound = Math.log(error / (1.0 - error));
+    }
+
+    public Decision evaluate(int blocks, int fakeBlocks) {
+        if (blocks < minBlocks) {
+            return Decision.UNDECIDED;
+        }
+
+        double llr = fakeBlocks * fakeStep + (blocks - fakeBlocks) * realStep;
+        if (llr >= upperBound) {
+            return Decision.FAKE;
+        }
+        if (llr <= lowerBound) {
+            return Decision.REAL;
+        }
+        return Decision.UNDECIDED;
+    }
+}
@@ -0,0 +1,66 @@
+package com.deepfakedetector.util.analysis;
+
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.Session;
+import org.tensorflow.proto.framework.ConfigProto;
+import org.tensorflow.types.TFloat32;
+
+import java.nio.file.Path;
+
+/**
+ * Runs the Keras-exported SavedModel through a TensorFlow Java session. The
+ * session is thread-safe, so inference workers share it.
+ */
+public class TensorFlowBackend implements InferenceBackend {
+
+    private final SavedModelBundle bundle;
+    private final Session session;
+    private final int imageSize;
+
+    private TensorFlowBackend(SavedModelBundle bundle, int imageSize) {
+        this.bundle = bundle;
+        this.session = bundle.session();
+        this.imageSize = imageSize;
+    }
+
+    public static TensorFlowBackend load(Path directory, int imageSize, ConfigProto config) {
+        SavedModelBundle bundle = SavedModelBundle.loader(directory.toString())
+                .withTags("serve")
+                .withConfigProto(config)
+                .load();
+        return new TensorFlowBackend(bundle, imageSize);
+    }
+
+    @Override
+    public String getName() {
+        return TENSORFLOW;
+    }
+
+    @Override
+    public Inputs newInputs() {
+        return new BlockTensorWriter(imageSize);
+    }
+
+    @Override
+    public float[] run(Inputs inputs, int batchSize) {
+        BlockTensorWriter writer = (BlockTensorWriter) inputs;
+        // Reused tensors owned by the writer, so only the output is closed here
+        try (TFloat32 out = (TFloat32) session.runner()
+                .feed("serving_default_video_block:0", writer.getBlockTensor())
+                .feed("serving_default_glcm_lbp:0", writer.getHandTensor())
+                .fetch("StatefulPartitionedCall:0")
+                .run().get(0)) {
+
+            float[] preds = new float[batchSize];
+            for (int i = 0; i < batchSize; i++) {
+                preds[i] = out.getFloat(i, 0);
+            }
+            return preds;
+        }
+    }
+
+    @Override
+    public void close() {
+        bundle.close();
+    }
+}
@@ -0,0 +1,115 @@
+package com.deepfakedetector.util.analysis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.opencv.global.opencv_core;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.tensorflow.proto.framework.ConfigProto;
+import org.tensorflow.proto.framework.GraphOptions;
+import org.tensorflow.proto.framework.OptimizerOptions;
+
+/**
+ * Splits the host's cores between the native thread pools of the pipeline,
+ * so that together they add up to one budget of {@code cores}.
+ * <p>
+ * Inference is shared by all analyses through the batcher, so it is reserved
+ * first: by default half the cores, divided between the inference workers as
+ * TensorFlow intra-op threads. The rest is split evenly between the
+ * scheduler's concurrent analyses; within a share the FFmpeg decoders and the
+ * OpenCV face detector divide it, since they run side by side on one video.
+ * Only the FFmpeg threads are really per analysis (each grabber has its own).
+ * OpenCV has a single process-wide pool that every analysis's detector and
+ * the ONNX backend share, so its size is the detector part of one share
+ * times the concurrent analyses.
+ * <p>
+ * Without this every library sized itself to the whole machine, so a few
+ * overlapping analyses ran several times more native threads than cores.
+ */
+@Slf4j
+@Component
+public class ThreadBudget {
+
+    private final int cores;
+    private final int perAnalysis;
+    private final int decodeThreads;
+    private final int openCvThreads;
+    private final int inferenceThreads;
+    private final int inferenceWorkers;
+
+    public ThreadBudget(
+            AnalysisScheduler scheduler,
+            @Value("${model.video.threads.cores:0}") int cores,
+            @Value("${model.video.threads.per-analysis:0}") int perAnalysis,
+            @Value("${model.video.threads.decode:0}") int decodeThreads,
+            @Value("${model.video.threads.opencv:0}") int openCvThreads,
+            @Value("${model.video.threads.inference:0}") int inferenceThreads,
+            @Value("${model.batch.workers:1}") int inferenceWorkers
+    ) {
+        this.cores = cores > 0 ? cores : Runtime.getRuntime().availableProcessors();
+        int maxConcurrent = scheduler.getMaxConcurrent();
+
+        // The shared inference pool comes out of the budget first
+        this.inferenceWorkers = Math.max(1, inferenceWorkers);
+        this.inferenceThreads = inferenceThreads > 0
+                ? inferenceThreads
+                : Math.max(1, this.cores / 2 / this.inferenceWorkers);
+        int remaining = Math.max(1, this.cores - this.inferenceThreads * this.inferenceWorkers);
+
+        this.perAnalysis = perAnalysis > 0 ? perAnalysis : Math.max(1, remaining / maxConcurrent);
+        this.decodeThreads = decodeThreads > 0 ? decodeThreads : Math.max(1, this.perAnalysis / 2);
+        this.openCvThreads = openCvThreads > 0
+                ? openCvThreads
+                : Math.max(1, Math.min(remaining, (this.perAnalysis - this.decodeThreads) * maxConcurrent));
+
+        // Process-wide, not per analysis: one pool for every face detector and the ONNX backend
+        opencv_core.setNumThreads(this.openCvThreads);
+
+        log.info("ThreadBudget initialized - cores: {} = inference {} x {} workers + {} analyses x "
+                        + "(decode {} + opencv {}); opencv pool (shared): {}",
+                this.cores, this.inferenceThreads, this.inferenceWorkers, maxConcurrent,
+                this.decodeThreads, this.perAnalysis - this.decodeThreads, this.openCvThreads);
+    }
+
+    public int getCores() {
+        return cores;
+    }
+
+    public int getPerAnalysis() {
+        return perAnalysis;
+    }
+
+    /**
+     * FFmpeg decoder threads for one grabber when an analysis decodes
+     * {@code streams} segments at once.
+     */
+    public int getDecodeThreads(int streams) {
+        return Math.max(1, decodeThreads / Math.max(1, streams));
+    }
+
+    /**
+     * Size of OpenCV's process-wide pool, shared by all running analyses.
+     */
+    public int getOpenCvThreads() {
+        return openCvThreads;
+    }
+
+    /**
+     * Session options for the TensorFlow backend. Each session gets its own
+     * pools, so a hot-swapped version is sized the same instead of inheriting
+     * whatever the first session in the process asked for.
+     */
+    public ConfigProto tensorFlowConfig() {
+        return ConfigProto.newBuilder()
+                .setIntraOpParallelismThreads(inferenceThreads)
+                // Concurrent batches from the workers, the model itself is one chain of ops
+                .setInterOpParallelismThreads(inferenceWorkers)
+                .setUsePerSessionThreads(true)
+                .setGraphOptions(GraphOptions.newBuilder()
+                        .setOptimizerOptions(OptimizerOptions.newBuilder()
+                                .setOptLevel(OptimizerOptions.Level.L1)
+                                .setDoCommonSubexpressionElimination(true)
+                                .setDoConstantFolding(true)
+                                .setDoFunctionInlining(true)))
+                .build();
+    }
+}
@@ -0,0 +1,205 @@
+package com.deepfakedetector.util.analysis;
+
+import com.deepfakedetector.exception.DeepfakeSilentException;
+import com.deepfakedetector.exception.DetectionErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Turns the face crops of one video into 4-frame blocks and scores them.
+ * In streaming mode each block goes to the batcher as soon as it is complete
+ * and at most {@code maxInFlightBlocks} are awaiting results, so memory stays
+ * flat whatever the video length. Buffered mode holds every block and submits
+ * them together once decoding is done.
+ * <p>
+ * Hand-crafted features are extracted on {@code featureExecutor}, so a block's
+ * descriptor is computed while earlier blocks are tensorised and run and the
+ * caller goes on decoding.
+ * <p>
+ * Crops are pooled buffers. A block's crops pass to the batcher with the
+ * block; crops that never get that far (a partial last block, blocks of an
+ * abandoned analysis) go back to the pool here.
+ */
+@Slf4j
+public class VideoBlockScorer {
+
+    // Same cut-off the analyzer has always used to call a single block fake
+    public static final float FAKE_BLOCK_THRESHOLD = 0.5f;
+
+    private final InferenceBatcher batcher;
+    private final Function<byte[][], float[]> handFeatures;
+    private final Executor featureExecutor;
+    private final boolean streaming;
+    private final int maxInFlightBlocks;
+    private final BufferPool buffers;
+
+    private final Deque<CompletableFuture<float[]>> inFlight = new ArrayDeque<>();
+    private final List<CompletableFuture<BlockInput>> buffered = new ArrayList<>();
+    private byte[][] currentBlock = new byte[BlockTensorWriter.FRAMES_PER_BLOCK][];
+    private int currentFrames;
+    private int faceFrames;
+
+    private float[] predictions = new float[64];
+    private int scoredBlocks;
+    private int fakeBlocks;
+    private float maxScore = Float.MIN_VALUE;
+
+    public VideoBlockScorer(InferenceBatcher batcher, Function<byte[][], float[]> handFeatures,
+                            Executor featureExecutor, boolean streaming, int maxInFlightBlocks, BufferPool buffers) {
+        this.batcher = batcher;
+        this.handFeatures = handFeatures;
+        this.featureExecutor = featureExecutor;
+        this.streaming = streaming;
+        this.maxInFlightBlocks = Math.max(1, maxInFlightBlocks);
+        this.buffers = buffers;
+    }
+
+    public void addFace(byte[] crop) {
+        faceFrames++;
+        currentBlock[currentFrames++] = crop;
+        if (currentFrames < BlockTensorWriter.FRAMES_PER_BLOCK) {
+            return;
+        }
+
+        byte[][] frames = currentBlock;
+        CompletableFuture<BlockInput> block = CompletableFuture.supplyAsync(() -> {
+            try {
+                return new BlockInput(frames, handFeatures.apply(frames));
+            } catch (RuntimeException e) {
+                release(frames);
+                throw e;
+            }
+        }, featureExecutor);
+        currentBlock = new byte[BlockTensorWriter.FRAMES_PER_BLOCK][];
+        currentFrames = 0;
+
+        if (!streaming) {
+            buffered.add(block);
+            return;
+        }
+
+        inFlight.add(block.thenCompose(input -> batcher.submit(List.of(input))));
+        while (inFlight.size() > maxInFlightBlocks) {
+            accumulate(awaitOldest());
+        }
+        // Fold in whatever already came back so running totals stay current
+        while (!inFlight.isEmpty() && inFlight.peek().isDone()) {
+            accumulate(awaitOldest());
+        }
+    }
+
+    public BlockScores finish() {
+        // The crops of an unfinished last block are never scored
+        releaseCurrentBlock();
+        try {
+            if (!buffered.isEmpty()) {
+                List<CompletableFuture<BlockInput>> blocks = new ArrayList<>(buffered);
+                buffered.clear();
+                inFlight.add(CompletableFuture.allOf(blocks.toArray(new CompletableFuture[0]))
+                        .whenComplete((ignored, failure) -> {
+                            if (failure != null) {
+                                releaseBlocks(blocks);
+                            }
+                        })
+                        .thenCompose(ignored -> batcher.submit(blocks.stream().map(CompletableFuture::join).toList())));
+            }
+            while (!inFlight.isEmpty()) {
+                accumulate(awaitOldest());
+            }
+        } finally {
+            // After a failure the remaining blocks are abandoned; submitted ones belong to the batcher
+            inFlight.clear();
+        }
+
+        return new BlockScores(Arrays.copyOf(predictions, scoredBlocks), faceFrames, fakeBlocks, maxScore);
+    }
+
+    /**
+     * Gives back the crops of an analysis that ends without {@link #finish()}:
+     * the partial block and any buffered blocks not yet submitted. Blocks
+     * already streamed to the batcher are released by it.
+     */
+    public void discard() {
+        releaseCurrentBlock();
+        releaseBlocks(buffered);
+        buffered.clear();
+        inFlight.clear();
+    }
+
+    public int getFaceFrames() {
+        return faceFrames;
+    }
+
+    public int getScoredBlocks() {
+        return scoredBlocks;
+    }
+
+    public int getFakeBlocks() {
+        return fakeBlocks;
+    }
+
+    public float getMaxScore() {
+        return maxScore;
+    }
+
+    private void releaseCurrentBlock() {
+        if (currentBlock != null) {
+            release(currentBlock);
+            currentBlock = null;
+            currentFrames = 0;
+        }
+    }
+
+    // Blocks whose extraction failed already released their crops
+    private void releaseBlocks(List<CompletableFuture<BlockInput>> blocks) {
+        for (CompletableFuture<BlockInput> block : blocks) {
+            try {
+                release(block.join().getFrames());
+            } catch (CompletionException | CancellationException ignored) {
+            }
+        }
+    }
+
+    private void release(byte[][] frames) {
+        for (byte[] crop : frames) {
+            buffers.release(crop);
+        }
+    }
+
+    private float[] awaitOldest() {
+        try {
+            return inFlight.poll().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof DeepfakeSilentException silent) {
+                throw silent;
+            }
+            log.error("Batched inference failed: {}", e.getMessage(), e);
+            throw new DeepfakeSilentException(DetectionErrorCode.FAILED_TO_ANALYZE_VIDEO);
+        }
+    }
+
+    private void accumulate(float[] preds) {
+        if (scoredBlocks + preds.length > predictions.length) {
+            predictions = Arrays.copyOf(predictions, Math.max(predictions.length * 2, scoredBlocks + preds.length));
+        }
+        for (float pred : preds) {
+            predictions[scoredBlocks++] = pred;
+            if (pred > FAKE_BLOCK_THRESHOLD) {
+                fakeBlocks++;
+            }
+            if (pred > maxScore) {
+                maxScore = pred;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.deepfakedetector.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentDigestTest {
+
+    @Test
+    void matchesReferenceVectors() {
+        // xxHash64, seed 0, as published with the reference implementation
+        assertThat(hash("")).isEqualTo(0xEF46DB3751D8E999L);
+        assertThat(hash("a")).isEqualTo(0xD24EC4F1A98C6E5BL);
+        assertThat(hash("abc")).isEqualTo(0x44BC2CF5AD770999L);
+        // Longer than one 32-byte stripe, so the accumulators and every tail path are used
+        assertThat(hash("Nobody inspects the spammish repetition")).isEqualTo(0xFBCEA83C8A378BF1L);
+    }
+
+    @Test
+    void chunkingDoesNotChangeTheDigest() {
+        byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31 + 7);
+        }
+        ContentDigest whole = new ContentDigest();
+        whole.update(data, 0, data.length);
+
+        for (int chunk : new int[]{1, 3, 8, 31, 32, 33, 100, 999}) {
+            ContentDigest split = new ContentDigest();
+            for (int offset = 0; offset < data.length; offset += chunk) {
+                split.update(data, offset, Math.min(chunk, data.length - offset));
+            }
+            assertThat(split.getValue()).as("chunk size %d", chunk).isEqualTo(whole.getValue());
+        }
+    }
+
+    @Test
+    void copyWritesTheFileAndReturnsDigestWithLength(@TempDir Path dir) throws IOException {
+        byte[] data = "Nobody inspects the spammish repetition".getBytes(StandardCharsets.US_ASCII);
+        Path target = dir.resolve("upload.mp4");
+
+        String digest = ContentDigest.copy(new ByteArrayInputStream(data), target);
+
+        assertThat(digest).isEqualTo("fbcea83c8a378bf1-39");
+        assertThat(Files.readAllBytes(target)).isEqualTo(data);
+    }
+
+    private static long hash(String text) {
+        byte[] data = text.getBytes(StandardCharsets.US_ASCII);
+        ContentDigest digest = new ContentDigest();
+        digest.update(data, 0, data.length);
+        return digest.getValue();
+    }
+}
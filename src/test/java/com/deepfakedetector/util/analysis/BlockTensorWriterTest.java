@@ -0,0 +1,58 @@
+package com.deepfakedetector.util.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import static com.deepfakedetector.util.analysis.BlockTensorWriter.CHANNELS;
+import static com.deepfakedetector.util.analysis.BlockTensorWriter.FRAMES_PER_BLOCK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlockTensorWriterTest {
+
+    @Test
+    void interleavesFramesAsHeightWidthFrameChannel() {
+        int size = 3;
+        byte[][] frames = new byte[FRAMES_PER_BLOCK][];
+        for (int d = 0; d < FRAMES_PER_BLOCK; d++) {
+            frames[d] = new byte[size * size * CHANNELS];
+            for (int i = 0; i < frames[d].length; i++) {
+                frames[d][i] = (byte) value(d, i);
+            }
+        }
+
+        float[] block = new float[size * size * FRAMES_PER_BLOCK * CHANNELS];
+        BlockTensorWriter.interleave(frames, block);
+
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                for (int d = 0; d < FRAMES_PER_BLOCK; d++) {
+                    for (int c = 0; c < CHANNELS; c++) {
+                        int src = (y * size + x) * CHANNELS + c;
+                        int dst = ((y * size + x) * FRAMES_PER_BLOCK + d) * CHANNELS + c;
+                        assertThat(block[dst]).isEqualTo(value(d, src) / 255.0f);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void normalisesTheFullByteRangeAsUnsigned() {
+        byte[][] frames = new byte[FRAMES_PER_BLOCK][];
+        for (int d = 0; d < FRAMES_PER_BLOCK; d++) {
+            frames[d] = new byte[]{0, (byte) 128, (byte) 255};
+        }
+
+        float[] block = new float[FRAMES_PER_BLOCK * CHANNELS];
+        BlockTensorWriter.interleave(frames, block);
+
+        for (int d = 0; d < FRAMES_PER_BLOCK; d++) {
+            assertThat(block[d * CHANNELS]).isEqualTo(0f);
+            assertThat(block[d * CHANNELS + 1]).isEqualTo(128 / 255.0f);
+            assertThat(block[d * CHANNELS + 2]).isEqualTo(1f);
+        }
+    }
+
+    private static int value(int frame, int index) {
+        return (frame * 61 + index * 7) & 0xFF;
+    }
+}
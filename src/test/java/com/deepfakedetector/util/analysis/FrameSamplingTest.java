@@ -0,0 +1,58 @@
+package com.deepfakedetector.util.analysis;
+
+import com.deepfakedetector.exception.DeepfakeException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FrameSamplingTest {
+
+    @Test
+    void blankSpecMeansAllFrames() throws DeepfakeException {
+        assertThat(FrameSampling.parse(null)).isSameAs(FrameSampling.ALL);
+        assertThat(FrameSampling.parse("  ")).isSameAs(FrameSampling.ALL);
+        assertThat(FrameSampling.parse("all")).isSameAs(FrameSampling.ALL);
+    }
+
+    @Test
+    void parsesPoliciesWithValues() throws DeepfakeException {
+        FrameSampling nth = FrameSampling.parse("every-nth:5");
+        assertThat(nth.getPolicy()).isEqualTo(FrameSampling.Policy.EVERY_NTH);
+        assertThat(nth.intValue()).isEqualTo(5);
+
+        FrameSampling fps = FrameSampling.parse(" Target-FPS:2.5 ");
+        assertThat(fps.getPolicy()).isEqualTo(FrameSampling.Policy.TARGET_FPS);
+        assertThat(fps.getValue()).isEqualTo(2.5);
+
+        FrameSampling blocks = FrameSampling.parse("uniform-blocks:32");
+        assertThat(blocks.getPolicy()).isEqualTo(FrameSampling.Policy.UNIFORM_BLOCKS);
+        assertThat(blocks.intValue()).isEqualTo(32);
+
+        assertThat(FrameSampling.parse("keyframe").getPolicy()).isEqualTo(FrameSampling.Policy.KEYFRAME);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"all", "every-nth:5", "target-fps:2.5", "keyframe", "uniform-blocks:32"})
+    void toStringRoundTrips(String spec) throws DeepfakeException {
+        assertThat(FrameSampling.parse(spec).toString()).isEqualTo(spec);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"sometimes", "every-nth", "every-nth:", "every-nth:0", "every-nth:2.5",
+            "target-fps:-1", "target-fps:abc", "uniform-blocks:1.5"})
+    void rejectsInvalidSpecs(String spec) {
+        assertThatThrownBy(() -> FrameSampling.parse(spec)).isInstanceOf(DeepfakeException.class);
+    }
+
+    @Test
+    void onlyLocalPoliciesAreSegmentable() throws DeepfakeException {
+        assertThat(FrameSampling.parse("all").isSegmentable()).isTrue();
+        assertThat(FrameSampling.parse("every-nth:3").isSegmentable()).isTrue();
+        assertThat(FrameSampling.parse("target-fps:6").isSegmentable()).isTrue();
+        assertThat(FrameSampling.parse("keyframe").isSegmentable()).isFalse();
+        assertThat(FrameSampling.parse("uniform-blocks:8").isSegmentable()).isFalse();
+    }
+}
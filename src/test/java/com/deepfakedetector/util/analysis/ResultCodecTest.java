@@ -0,0 +1,63 @@
+package com.deepfakedetector.util.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResultCodecTest {
+
+    @Test
+    void roundTripsARecord() {
+        AnalysisRecord record = new AnalysisRecord(new float[]{0.1f, 0.75f, 0.5f, 0.9999f}, 17, 240, 12, true);
+
+        AnalysisRecord decoded = ResultCodec.decode(ResultCodec.encode(record));
+
+        assertThat(decoded).isNotNull();
+        assertThat(decoded.getPredictions()).containsExactly(record.getPredictions());
+        assertThat(decoded.getFaceFrames()).isEqualTo(17);
+        assertThat(decoded.getFramesDecoded()).isEqualTo(240);
+        assertThat(decoded.getFramesSkipped()).isEqualTo(12);
+        assertThat(decoded.isEarlyExit()).isTrue();
+        assertThat(decoded.getFakeBlocks()).isEqualTo(2);
+        assertThat(decoded.getMaxScore()).isEqualTo(0.9999f);
+    }
+
+    @Test
+    void roundTripsARecordWithoutBlocks() {
+        AnalysisRecord decoded = ResultCodec.decode(ResultCodec.encode(new AnalysisRecord(new float[0], 3, 90, 0, false)));
+
+        assertThat(decoded).isNotNull();
+        assertThat(decoded.getBlocks()).isZero();
+        assertThat(decoded.isEarlyExit()).isFalse();
+    }
+
+    @Test
+    void versionOneEntriesAreMisses() throws IOException {
+        // A finished response as the first Redis tier stored it: version, flags, then the fields
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(1);
+            out.writeByte(1 << 5);
+            out.writeUTF("FAKE");
+            out.writeFloat(0.93f);
+            out.writeDouble(4.2);
+            out.writeUTF("62.50%");
+        }
+
+        assertThat(ResultCodec.decode(bytes.toByteArray())).isNull();
+    }
+
+    @Test
+    void truncatedEntriesAreMisses() {
+        byte[] encoded = ResultCodec.encode(new AnalysisRecord(new float[]{0.2f, 0.8f}, 8, 60, 0, false));
+
+        assertThat(ResultCodec.decode(Arrays.copyOf(encoded, encoded.length - 1))).isNull();
+        assertThat(ResultCodec.decode(Arrays.copyOf(encoded, 5))).isNull();
+        assertThat(ResultCodec.decode(new byte[0])).isNull();
+    }
+}
@@ -0,0 +1,70 @@
+package com.deepfakedetector.util.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static com.deepfakedetector.util.analysis.SequentialVerdict.Decision.FAKE;
+import static com.deepfakedetector.util.analysis.SequentialVerdict.Decision.REAL;
+import static com.deepfakedetector.util.analysis.SequentialVerdict.Decision.UNDECIDED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SequentialVerdictTest {
+
+    private final SequentialVerdict verdict = new SequentialVerdict(0.4f, 0.99, 0.1, 12);
+
+    @Test
+    void neverStopsBeforeTheMinimumBlocks() {
+        assertThat(verdict.evaluate(11, 11)).isEqualTo(UNDECIDED);
+        assertThat(verdict.evaluate(11, 0)).isEqualTo(UNDECIDED);
+    }
+
+    @Test
+    void stopsOnceTheLikelihoodRatioCrossesABound() {
+        // ln(0.5 / 0.3) per fake block against ln(99): nine fake blocks would do, the floor holds it to twelve
+        assertThat(verdict.evaluate(12, 12)).isEqualTo(FAKE);
+        // ln(0.7 / 0.5) per real block needs fourteen
+        assertThat(verdict.evaluate(13, 0)).isEqualTo(UNDECIDED);
+        assertThat(verdict.evaluate(14, 0)).isEqualTo(REAL);
+    }
+
+    @Test
+    void staysUndecidedAtTheThreshold() {
+        assertThat(verdict.evaluate(100, 40)).isEqualTo(UNDECIDED);
+        assertThat(verdict.evaluate(500, 200)).isEqualTo(UNDECIDED);
+    }
+
+    @Test
+    void repeatedEvaluationKeepsWrongStopsNearTheErrorRate() {
+        // At the edge of the margin (the hardest rate the test still has to get right),
+        // checking after every block must not inflate the wrong-side stops far past 1%
+        Random random = new Random(42);
+        int runs = 4000;
+        int wrongStops = 0;
+        for (int run = 0; run < runs; run++) {
+            int fake = 0;
+            for (int blocks = 1; blocks <= 2000; blocks++) {
+                if (random.nextDouble() < 0.3) {
+                    fake++;
+                }
+                SequentialVerdict.Decision decision = verdict.evaluate(blocks, fake);
+                if (decision != UNDECIDED) {
+                    if (decision == FAKE) {
+                        wrongStops++;
+                    }
+                    break;
+                }
+            }
+        }
+        assertThat((double) wrongStops / runs).isLessThan(0.02);
+    }
+
+    @Test
+    void rejectsOutOfRangeParameters() {
+        assertThatThrownBy(() -> new SequentialVerdict(0.4f, 0.5, 0.1, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SequentialVerdict(0.4f, 0.99, 0, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
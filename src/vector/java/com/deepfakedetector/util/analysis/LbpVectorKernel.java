@@ -0,0 +1,49 @@
+package com.deepfakedetector.util.analysis;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD version of {@link HandFeatureExtractor#scalarCodes}: every neighbour
+ * corner sits at a fixed offset from the centre, so a run of centre pixels
+ * reads contiguous lanes. Compiled only by the {@code vector} profile and
+ * loaded reflectively when the Vector API module is present.
+ */
+final class LbpVectorKernel implements HandFeatureExtractor.LbpKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    LbpVectorKernel() {
+    }
+
+    /**
+     * Writes the codes of as many whole vectors as fit in {@code [xFrom, xTo)}
+     * and returns the first pixel left for the scalar loop.
+     */
+    @Override
+    public int codes(float[] gray, int row, int xFrom, int xTo, HandFeatureExtractor.LbpSampling s,
+                     int[] codes) {
+        int lanes = SPECIES.length();
+        int x = xFrom;
+        for (; x + lanes <= xTo; x += lanes) {
+            int centre = row + x;
+            FloatVector value = FloatVector.fromArray(SPECIES, gray, centre)
+                    .sub(HandFeatureExtractor.SAMPLE_TOLERANCE);
+            // Bit values are summed as floats; 255 is exact, and F2I turns them into the code
+            FloatVector code = FloatVector.zero(SPECIES);
+            for (int k = 0; k < HandFeatureExtractor.LBP_POINTS; k++) {
+                FloatVector sample = FloatVector.fromArray(SPECIES, gray, centre + s.offset00[k]).mul(s.weight00[k])
+                        .add(FloatVector.fromArray(SPECIES, gray, centre + s.offset01[k]).mul(s.weight01[k]))
+                        .add(FloatVector.fromArray(SPECIES, gray, centre + s.offset10[k]).mul(s.weight10[k]))
+                        .add(FloatVector.fromArray(SPECIES, gray, centre + s.offset11[k]).mul(s.weight11[k]));
+                VectorMask<Float> set = sample.compare(VectorOperators.GE, value);
+                code = code.add(1 << k, set);
+            }
+            ((IntVector) code.convert(VectorOperators.F2I, 0)).intoArray(codes, x);
+        }
+        return x;
+    }
+}